@@ -0,0 +1,41 @@
+package fr.leblanc.security.config;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+
+@Configuration
+public class StartupConfiguration {
+
+	private static final List<Class<? extends Annotation>> REQUEST_PATH_STEREOTYPES = List.of(Controller.class,
+			Service.class, Repository.class);
+
+	// with spring.main.lazy-initialization=true, beans serving requests are still created at startup
+	// so the first request does not pay for them
+	@Bean
+	public static LazyInitializationExcludeFilter requestPathBeansExcludeFilter() {
+		return (beanName, beanDefinition, beanType) -> beanType != null && REQUEST_PATH_STEREOTYPES.stream()
+				.anyMatch(stereotype -> AnnotatedElementUtils.hasAnnotation(beanType, stereotype));
+	}
+
+	// evaluated at runtime rather than with a condition, AOT processing would freeze the condition at build time
+	@Bean
+	public ApplicationListener<ApplicationReadyEvent> trainingRunListener() {
+		return event -> {
+			if (event.getApplicationContext().getEnvironment().getProperty("startup.training-run", Boolean.class, false)) {
+				System.exit(SpringApplication.exit(event.getApplicationContext()));
+			}
+		};
+	}
+
+}
@@ -1,5 +1,7 @@
 package pattern.state;
 
+import pattern.state.engine.PlayerState;
+
 public class LockedState extends State {
 
     LockedState(Player player) {
@@ -7,6 +9,11 @@ public class LockedState extends State {
         player.setPlaying(false);
     }
 
+    @Override
+    public PlayerState getType() {
+        return PlayerState.LOCKED;
+    }
+
     @Override
     public String onLock() {
         if (player.isPlaying()) {
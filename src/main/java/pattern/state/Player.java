@@ -1,20 +1,67 @@
 package pattern.state;
 
-import java.util.ArrayList;
-import java.util.List;
+import pattern.state.engine.PlayerEvent;
+import pattern.state.metrics.TransitionMetrics;
+import pattern.state.playlist.Playlist;
 
 public class Player {
     private State state;
     private boolean playing = false;
-    private List<String> playlist = new ArrayList<>();
+    private final Playlist playlist;
     private int currentTrack = 0;
 
     public Player() {
+        this(Playlist.generated(12));
+    }
+
+    public Player(Playlist playlist) {
+        if (playlist.size() <= 0) {
+            throw new IllegalArgumentException("A playlist needs at least one track");
+        }
+        this.playlist = playlist;
         this.state = new ReadyState(this);
         setPlaying(true);
-        for (int i = 1; i <= 12; i++) {
-            playlist.add("Track " + i);
+    }
+
+    public String play() {
+        return handle(PlayerEvent.PLAY);
+    }
+
+    public String lock() {
+        return handle(PlayerEvent.LOCK);
+    }
+
+    public String next() {
+        return handle(PlayerEvent.NEXT);
+    }
+
+    public String previous() {
+        return handle(PlayerEvent.PREVIOUS);
+    }
+
+    private String handle(PlayerEvent event) {
+        if (!TransitionMetrics.ENABLED) {
+            return dispatch(state, event);
+        }
+        State from = state;
+        if (!TransitionMetrics.sampleLatency()) {
+            String result = dispatch(from, event);
+            TransitionMetrics.GLOBAL.record(from.getType(), event, state.getType());
+            return result;
         }
+        long start = System.nanoTime();
+        String result = dispatch(from, event);
+        TransitionMetrics.GLOBAL.record(from.getType(), event, state.getType(), System.nanoTime() - start);
+        return result;
+    }
+
+    private static String dispatch(State state, PlayerEvent event) {
+        return switch (event) {
+            case PLAY -> state.onPlay();
+            case LOCK -> state.onLock();
+            case NEXT -> state.onNext();
+            case PREVIOUS -> state.onPrevious();
+        };
     }
 
     public void changeState(State state) {
@@ -34,23 +81,17 @@ public class Player {
     }
 
     public String startPlayback() {
-        return "Playing " + playlist.get(currentTrack);
+        return "Playing " + playlist.title(currentTrack);
     }
 
     public String nextTrack() {
-        currentTrack++;
-        if (currentTrack > playlist.size() - 1) {
-            currentTrack = 0;
-        }
-        return "Playing " + playlist.get(currentTrack);
+        currentTrack = playlist.next(currentTrack);
+        return "Playing " + playlist.title(currentTrack);
     }
 
     public String previousTrack() {
-        currentTrack--;
-        if (currentTrack < 0) {
-            currentTrack = playlist.size() - 1;
-        }
-        return "Playing " + playlist.get(currentTrack);
+        currentTrack = playlist.previous(currentTrack);
+        return "Playing " + playlist.title(currentTrack);
     }
 
     public void setCurrentTrackAfterStop() {
@@ -0,0 +1,44 @@
+package pattern.state;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.swing.SwingUtilities;
+
+// Runs a player's commands on its own thread, in order, and hands the replies back to the event dispatch
+// thread. Replies that pile up while the EDT is busy are coalesced, only the latest one is shown.
+public class PlayerCommandQueue implements AutoCloseable {
+    private final Player player;
+    private final Consumer<String> display;
+    private final ExecutorService worker;
+    private final AtomicReference<String> latest = new AtomicReference<>();
+
+    public PlayerCommandQueue(Player player, Consumer<String> display) {
+        this.player = player;
+        this.display = display;
+        // the player is only ever touched by this thread, daemon so the last window closing ends the JVM
+        this.worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "player-commands");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(Function<Player, String> command) {
+        worker.execute(() -> publish(command.apply(player)));
+    }
+
+    @Override
+    public void close() {
+        worker.shutdownNow();
+    }
+
+    private void publish(String reply) {
+        if (latest.getAndSet(reply) == null) {
+            SwingUtilities.invokeLater(() -> display.accept(latest.getAndSet(null)));
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package pattern.state;
 
+import pattern.state.engine.PlayerState;
+
 public class PlayingState extends State {
 
     PlayingState(Player player) {
         super(player);
     }
 
+    @Override
+    public PlayerState getType() {
+        return PlayerState.PLAYING;
+    }
+
     @Override
     public String onLock() {
         player.changeState(new LockedState(player));
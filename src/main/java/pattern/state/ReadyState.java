@@ -1,11 +1,18 @@
 package pattern.state;
 
+import pattern.state.engine.PlayerState;
+
 public class ReadyState extends State {
 
     public ReadyState(Player player) {
         super(player);
     }
 
+    @Override
+    public PlayerState getType() {
+        return PlayerState.READY;
+    }
+
     @Override
     public String onLock() {
         player.changeState(new LockedState(player));
@@ -1,5 +1,7 @@
 package pattern.state;
 
+import pattern.state.engine.PlayerState;
+
 public abstract class State {
 
 	protected Player player;
@@ -8,6 +10,8 @@ public abstract class State {
 		this.player = player;
 	}
 	
+	public abstract PlayerState getType();
+
 	public abstract String onLock();
 	public abstract String onPlay();
 	public abstract String onNext();
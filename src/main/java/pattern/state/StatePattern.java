@@ -1,7 +1,12 @@
 package pattern.state;
 
+import pattern.state.metrics.TransitionMetrics;
+
 public class StatePattern {
     public static void main(String[] args) {
+        if (TransitionMetrics.ENABLED) {
+            TransitionMetrics.registerMBean();
+        }
         Player player = new Player();
         UI ui = new UI(player);
         ui.init();
@@ -1,6 +1,8 @@
 package pattern.state;
 
 import java.awt.FlowLayout;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
@@ -9,16 +11,22 @@ import javax.swing.JPanel;
 import javax.swing.JTextField;
 
 public class UI {
-    private Player player;
-    private static JTextField textField = new JTextField();
+    private final JTextField textField = new JTextField();
+    private final PlayerCommandQueue commands;
 
     public UI(Player player) {
-        this.player = player;
+        this.commands = new PlayerCommandQueue(player, textField::setText);
     }
 
     public void init() {
         JFrame frame = new JFrame("Test player");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                commands.close();
+            }
+        });
         JPanel context = new JPanel();
         context.setLayout(new BoxLayout(context, BoxLayout.Y_AXIS));
         frame.getContentPane().add(context);
@@ -28,15 +36,16 @@ public class UI {
 
         // Context delegates handling user's input to a state object. Naturally,
         // the outcome will depend on what state is currently active, since all
-        // states can handle the input differently.
+        // states can handle the input differently. Commands run off the event
+        // dispatch thread, a slow transition does not freeze the window.
         JButton play = new JButton("Play");
-        play.addActionListener(e -> textField.setText(player.getState().onPlay()));
+        play.addActionListener(e -> commands.submit(Player::play));
         JButton stop = new JButton("Stop");
-        stop.addActionListener(e -> textField.setText(player.getState().onLock()));
+        stop.addActionListener(e -> commands.submit(Player::lock));
         JButton next = new JButton("Next");
-        next.addActionListener(e -> textField.setText(player.getState().onNext()));
+        next.addActionListener(e -> commands.submit(Player::next));
         JButton prev = new JButton("Prev");
-        prev.addActionListener(e -> textField.setText(player.getState().onPrevious()));
+        prev.addActionListener(e -> commands.submit(Player::previous));
         frame.setVisible(true);
         frame.setSize(300, 100);
         buttons.add(play);
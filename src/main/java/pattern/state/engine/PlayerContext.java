@@ -0,0 +1,9 @@
+package pattern.state.engine;
+
+public interface PlayerContext extends StateMachine.Context<PlayerState> {
+    boolean isPlaying();
+    void setPlaying(boolean playing);
+    int getCurrentTrack();
+    void setCurrentTrack(int currentTrack);
+    Tracks getTracks();
+}
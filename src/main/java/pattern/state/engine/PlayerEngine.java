@@ -0,0 +1,281 @@
+package pattern.state.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import pattern.state.metrics.TransitionMetrics;
+import pattern.state.playlist.Playlist;
+
+// Many players behind one lock-free command API. Each session is a single long word holding the open flag,
+// playing flag, state and track, and a version in the upper half. A command decodes it, runs the transition
+// table, and compare-and-sets the result back, retrying if another thread got there first. Actions only touch
+// the context, so a retry is safe. A closed session's id is reused by a later open().
+public class PlayerEngine {
+
+    private static final int TRACK_MASK = 0xFFFF;
+    private static final int STATE_SHIFT = 16;
+    private static final int STATE_MASK = 0xFF;
+    private static final int PLAYING = 1 << 24;
+    private static final int OPEN = 1 << 25;
+    private static final long VERSION = 1L << 32;
+
+    // one session per cache line, neighbouring sessions would otherwise fail each other's CAS
+    private static final int STRIDE = 8;
+
+    private static final PlayerState[] STATES = PlayerState.values();
+
+    private static final int INITIAL = encode(PlayerState.READY, true, 0) | OPEN;
+
+    private final AtomicLongArray words;
+    private final int capacity;
+    // ids below opened have been handed out at least once, open() scans for a free slot from hint
+    private final AtomicInteger opened = new AtomicInteger();
+    private final AtomicInteger hint = new AtomicInteger();
+    // sessions open right now, an open() that counts itself in is sure to find a slot
+    private final AtomicInteger live = new AtomicInteger();
+    private final PlayerJournal journal;
+    // every session plays the same playlist
+    private final Tracks tracks;
+
+    // decoding into a per-thread context keeps commands allocation-free
+    private final ThreadLocal<Scratch> scratch;
+
+    public PlayerEngine(int capacity) {
+        this(capacity, null);
+    }
+
+    public PlayerEngine(int capacity, PlayerJournal journal) {
+        this(capacity, journal, Playlist.generated(12));
+    }
+
+    public PlayerEngine(int capacity, PlayerJournal journal, Playlist playlist) {
+        if (playlist.size() > TRACK_MASK + 1) {
+            throw new IllegalArgumentException("A session holds a track in 16 bits, the playlist has " + playlist.size());
+        }
+        this.capacity = capacity;
+        this.words = new AtomicLongArray(capacity * STRIDE);
+        this.journal = journal;
+        this.tracks = new Tracks(playlist);
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(tracks));
+    }
+
+    // takes the first closed or never used slot from a rotating start, a closed id is handed out again
+    public int open() {
+        int count;
+        do {
+            count = live.get();
+            if (count >= capacity) {
+                throw new IllegalStateException("All " + capacity + " sessions are in use");
+            }
+        } while (!live.compareAndSet(count, count + 1));
+        // the count guarantees a free slot, but one freed behind the scan is only seen on the next pass
+        for (int session = hint.get(); ; session = session + 1 < capacity ? session + 1 : 0) {
+            int index = session * STRIDE;
+            long word = words.get(index);
+            if ((word & OPEN) != 0) {
+                continue;
+            }
+            long next = word + VERSION & ~0xFFFFFFFFL | INITIAL;
+            if (!words.compareAndSet(index, word, next)) {
+                continue;
+            }
+            hint.set(session + 1 < capacity ? session + 1 : 0);
+            // raised before the record is appended, a snapshot covering the record also covers the session
+            opened.accumulateAndGet(session + 1, Math::max);
+            if (journal != null) {
+                try {
+                    journal.append(session, null, next);
+                } catch (RuntimeException | Error e) {
+                    // nobody has the id yet, hand the slot back
+                    words.set(index, next + VERSION & ~OPEN);
+                    live.decrementAndGet();
+                    throw e;
+                }
+            }
+            return session;
+        }
+    }
+
+    public void close(int session) {
+        int index = index(session);
+        long word;
+        long next;
+        do {
+            word = words.get(index);
+            if ((word & OPEN) == 0) {
+                throw new IllegalStateException("Session " + session + " is closed");
+            }
+            next = word + VERSION & ~OPEN;
+        } while (!words.compareAndSet(index, word, next));
+        live.decrementAndGet();
+        if (journal != null) {
+            journal.append(session, null, next);
+        }
+    }
+
+    public String play(int session) {
+        return fire(session, PlayerEvent.PLAY);
+    }
+
+    public String lock(int session) {
+        return fire(session, PlayerEvent.LOCK);
+    }
+
+    public String next(int session) {
+        return fire(session, PlayerEvent.NEXT);
+    }
+
+    public String previous(int session) {
+        return fire(session, PlayerEvent.PREVIOUS);
+    }
+
+    public String fire(int session, PlayerEvent event) {
+        if (!TransitionMetrics.ENABLED) {
+            return transition(session, event);
+        }
+        // the scratch context still holds the edge that won the CAS
+        if (!TransitionMetrics.sampleLatency()) {
+            String reply = transition(session, event);
+            Scratch context = scratch.get();
+            TransitionMetrics.GLOBAL.record(context.from, event, context.state);
+            return reply;
+        }
+        long start = System.nanoTime();
+        String reply = transition(session, event);
+        Scratch context = scratch.get();
+        TransitionMetrics.GLOBAL.record(context.from, event, context.state, System.nanoTime() - start);
+        return reply;
+    }
+
+    private String transition(int session, PlayerEvent event) {
+        int index = index(session);
+        Scratch context = scratch.get();
+        while (true) {
+            long word = words.get(index);
+            if ((word & OPEN) == 0) {
+                throw new IllegalStateException("Session " + session + " is closed");
+            }
+            context.decode((int) word);
+            String reply = PlayerStateMachine.MACHINE.fire(context, event);
+            int player = context.encode() | OPEN;
+            if (player == (int) word) {
+                return reply;
+            }
+            long next = (word & ~0xFFFFFFFFL) + VERSION | player;
+            if (words.compareAndSet(index, word, next)) {
+                if (journal != null) {
+                    journal.append(session, event, next);
+                }
+                return reply;
+            }
+        }
+    }
+
+    public PlayerState getState(int session) {
+        return STATES[((int) words.get(index(session)) >>> STATE_SHIFT) & STATE_MASK];
+    }
+
+    public int getCurrentTrack(int session) {
+        return (int) words.get(index(session)) & TRACK_MASK;
+    }
+
+    // closed sessions included, every id below it has a word
+    public int getOpenedSessions() {
+        return opened.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Playlist getPlaylist() {
+        return tracks.getPlaylist();
+    }
+
+    long getWord(int session) {
+        return words.get(session * STRIDE);
+    }
+
+    // recovery only: keeps whichever of the current and given word has the higher version
+    void restore(int session, long word) {
+        if (session < 0 || session >= capacity) {
+            throw new IllegalArgumentException("Session " + session + " out of " + capacity);
+        }
+        int index = session * STRIDE;
+        long current = words.get(index);
+        if (current == 0 || Long.compareUnsigned(word >>> 32, current >>> 32) > 0) {
+            words.set(index, word);
+            live.addAndGet(((word & OPEN) != 0 ? 1 : 0) - ((current & OPEN) != 0 ? 1 : 0));
+        }
+        opened.accumulateAndGet(session + 1, Math::max);
+    }
+
+    private int index(int session) {
+        if (session < 0 || session >= opened.get()) {
+            throw new IllegalArgumentException("Unknown session " + session);
+        }
+        return session * STRIDE;
+    }
+
+    private static int encode(PlayerState state, boolean playing, int currentTrack) {
+        return (playing ? PLAYING : 0) | state.ordinal() << STATE_SHIFT | currentTrack;
+    }
+
+    private static final class Scratch implements PlayerContext {
+        private final Tracks tracks;
+        private PlayerState from;
+        private PlayerState state;
+        private boolean playing;
+        private int currentTrack;
+
+        Scratch(Tracks tracks) {
+            this.tracks = tracks;
+        }
+
+        void decode(int word) {
+            state = STATES[(word >>> STATE_SHIFT) & STATE_MASK];
+            from = state;
+            playing = (word & PLAYING) != 0;
+            currentTrack = word & TRACK_MASK;
+        }
+
+        int encode() {
+            return PlayerEngine.encode(state, playing, currentTrack);
+        }
+
+        @Override
+        public PlayerState getState() {
+            return state;
+        }
+
+        @Override
+        public void setState(PlayerState state) {
+            this.state = state;
+        }
+
+        @Override
+        public boolean isPlaying() {
+            return playing;
+        }
+
+        @Override
+        public void setPlaying(boolean playing) {
+            this.playing = playing;
+        }
+
+        @Override
+        public int getCurrentTrack() {
+            return currentTrack;
+        }
+
+        @Override
+        public void setCurrentTrack(int currentTrack) {
+            this.currentTrack = currentTrack;
+        }
+
+        @Override
+        public Tracks getTracks() {
+            return tracks;
+        }
+    }
+}
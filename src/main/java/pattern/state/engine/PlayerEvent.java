@@ -0,0 +1,5 @@
+package pattern.state.engine;
+
+public enum PlayerEvent {
+    PLAY, LOCK, NEXT, PREVIOUS
+}
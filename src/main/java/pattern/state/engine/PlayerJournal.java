@@ -0,0 +1,297 @@
+package pattern.state.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Append-only log of every session word the engine publishes, in memory-mapped segment files. Writers reserve
+// a slot with one atomic add and write into the mapping, they never wait for the disk: a background thread
+// forces the dirty segments once per commit interval, so a crash loses at most that window. Records carry the
+// session version, replay keeps the highest one per session and does not depend on the order writes landed in.
+// A snapshot holds every word plus the log offset it was taken at, recovery loads it and replays the rest.
+// Background failures do not stop the schedule, the last one is kept for getFailure().
+public class PlayerJournal implements AutoCloseable {
+
+    // word, session, then the event and a checksum, a torn or never written record fails the checksum
+    static final int RECORD_BYTES = 16;
+
+    // the word is stored last with release semantics, a non-zero word means the whole record is visible
+    private static final VarHandle WORD = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private static final int NO_EVENT = 0xFF;
+    private static final int CHECKSUM_MASK = 0xFFFFFF;
+    private static final int MAGIC = 0x5EC0DE;
+    private static final PlayerEvent[] EVENTS = PlayerEvent.values();
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SNAPSHOT = "snapshot.bin";
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final AtomicLong cursor;
+    private final ConcurrentMap<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    // offsets whose writer failed after reserving them
+    private final Set<Long> abandoned = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+    // every record below it is written and forced
+    private volatile long committed;
+    // segments below it are deleted, a late writer must not map them again
+    private volatile long firstLiveSegment;
+    private volatile Exception failure;
+
+    private PlayerJournal(Path directory, int segmentBytes, long start, Duration commitInterval) {
+        if (segmentBytes % RECORD_BYTES != 0) {
+            throw new IllegalArgumentException("Segment size must be a multiple of " + RECORD_BYTES);
+        }
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.cursor = new AtomicLong(start);
+        this.committed = start;
+        this.firstLiveSegment = start / segmentBytes;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "player-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = commitInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                commit();
+            } catch (UncheckedIOException e) {
+                // nothing is marked committed, the next run forces the same segments again
+                failure = e;
+            }
+        }, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // appends go to a fresh segment after the existing ones, the tail of the last one may hold torn records
+    public static PlayerJournal open(Path directory, int segmentBytes, Duration commitInterval) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = segmentFiles(directory);
+        long start = existing.isEmpty() ? 0 : (segmentIndex(existing.get(existing.size() - 1)) + 1) * segmentBytes;
+        return new PlayerJournal(directory, segmentBytes, start, commitInterval);
+    }
+
+    // loads the snapshot into the engine and replays the records written after it, before any new command
+    public void recover(PlayerEngine engine) throws IOException {
+        long start = readSnapshot(directory, engine);
+        for (Path segment : segmentFiles(directory)) {
+            long first = segmentIndex(segment) * segmentBytes;
+            if (first + Files.size(segment) > start && first < committed) {
+                replay(segment, Math.max(start - first, 0), engine);
+            }
+        }
+    }
+
+    void append(int session, PlayerEvent event, long word) {
+        long offset = cursor.getAndAdd(RECORD_BYTES);
+        try {
+            MappedByteBuffer segment = segment(offset / segmentBytes);
+            int position = (int) (offset % segmentBytes);
+            int tail = (event == null ? NO_EVENT : event.ordinal()) << 24 | checksum(session, word);
+            segment.putInt(position + 8, session);
+            segment.putInt(position + 12, tail);
+            WORD.setRelease(segment, position, word);
+        } catch (RuntimeException | Error e) {
+            // the slot stays empty, replay skips it like a torn record and committing must not wait for it
+            abandoned.add(offset);
+            throw e;
+        }
+    }
+
+    // everything appended before this call is on disk when it returns
+    public void sync() throws IOException {
+        try {
+            commit();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public long getCommittedOffset() {
+        return committed;
+    }
+
+    // the last failure of a background commit or snapshot, null if none
+    public Exception getFailure() {
+        return failure;
+    }
+
+    // writes every session word and drops the segments the snapshot covers
+    public synchronized void snapshot(PlayerEngine engine) throws IOException {
+        // records below this offset are written before the words are read, so the words include them
+        sync();
+        long offset = committed;
+        int sessions = engine.getOpenedSessions();
+        Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            output.writeLong(offset);
+            output.writeInt(sessions);
+            for (int session = 0; session < sessions; session++) {
+                output.writeLong(engine.getWord(session));
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        // no reservation is left below the offset, so no writer maps these segments again
+        firstLiveSegment = Math.max(firstLiveSegment, offset / segmentBytes);
+        for (Path segment : segmentFiles(directory)) {
+            long index = segmentIndex(segment);
+            if ((index + 1) * segmentBytes <= offset) {
+                segments.remove(index);
+                Files.delete(segment);
+            }
+        }
+    }
+
+    public void scheduleSnapshots(PlayerEngine engine, Duration interval) {
+        long nanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot(engine);
+            } catch (IOException | UncheckedIOException e) {
+                // the log keeps every record the failed snapshot would have dropped, the next one retries
+                failure = e;
+            }
+        }, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sync();
+    }
+
+    private synchronized void commit() {
+        long offset = writtenUpTo(committed, cursor.get());
+        if (offset == committed) {
+            return;
+        }
+        for (long index = committed / segmentBytes; index <= (offset - 1) / segmentBytes; index++) {
+            MappedByteBuffer segment = segments.get(index);
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        long lastFull = offset / segmentBytes - 1;
+        segments.keySet().removeIf(index -> index < lastFull);
+        committed = offset;
+    }
+
+    // reserved slots can still be unwritten behind the cursor, committing stops at the first one that is not
+    // abandoned
+    private long writtenUpTo(long from, long to) {
+        long offset = from;
+        while (offset < to) {
+            MappedByteBuffer segment = segments.get(offset / segmentBytes);
+            if ((segment == null || (long) WORD.getAcquire(segment, (int) (offset % segmentBytes)) == 0)
+                    && !abandoned.remove(offset)) {
+                break;
+            }
+            offset += RECORD_BYTES;
+        }
+        return offset;
+    }
+
+    private MappedByteBuffer segment(long index) {
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            if (index < firstLiveSegment) {
+                throw new IllegalStateException("Segment " + index + " was deleted by a snapshot");
+            }
+            segment = segments.computeIfAbsent(index, this::map);
+        }
+        return segment;
+    }
+
+    private MappedByteBuffer map(long index) {
+        Path path = directory.resolve(String.format("%s%010d.log", SEGMENT_PREFIX, index));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long readSnapshot(Path directory, PlayerEngine engine) throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT);
+        if (!Files.exists(snapshot)) {
+            return 0;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            long offset = input.readLong();
+            int sessions = input.readInt();
+            for (int session = 0; session < sessions; session++) {
+                engine.restore(session, input.readLong());
+            }
+            return offset;
+        }
+    }
+
+    private static void replay(Path segment, long from, PlayerEngine engine) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int position = (int) from; position + RECORD_BYTES <= records.limit(); position += RECORD_BYTES) {
+                long word = records.getLong(position);
+                int session = records.getInt(position + 8);
+                int tail = records.getInt(position + 12);
+                // concurrent writers leave holes behind a crash, later records may still be whole
+                if ((tail & CHECKSUM_MASK) == checksum(session, word)) {
+                    int event = tail >>> 24;
+                    if (event == NO_EVENT || event < EVENTS.length) {
+                        engine.restore(session, word);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int checksum(int session, long word) {
+        long hash = (session * 0x9E3779B97F4A7C15L ^ word) * 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ hash >>> 29 ^ MAGIC) & CHECKSUM_MASK;
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long segmentIndex(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - ".log".length()));
+    }
+}
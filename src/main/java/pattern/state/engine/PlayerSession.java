@@ -0,0 +1,70 @@
+package pattern.state.engine;
+
+import pattern.state.playlist.Playlist;
+
+// The context of one player: plain fields, the behaviour lives in PlayerStateMachine
+public class PlayerSession implements PlayerContext {
+    private PlayerState state = PlayerState.READY;
+    private boolean playing = true;
+    private int currentTrack = 0;
+    private final Tracks tracks;
+
+    public PlayerSession() {
+        this(Playlist.generated(12));
+    }
+
+    public PlayerSession(Playlist playlist) {
+        this.tracks = new Tracks(playlist);
+    }
+
+    public String play() {
+        return PlayerStateMachine.MACHINE.fire(this, PlayerEvent.PLAY);
+    }
+
+    public String lock() {
+        return PlayerStateMachine.MACHINE.fire(this, PlayerEvent.LOCK);
+    }
+
+    public String next() {
+        return PlayerStateMachine.MACHINE.fire(this, PlayerEvent.NEXT);
+    }
+
+    public String previous() {
+        return PlayerStateMachine.MACHINE.fire(this, PlayerEvent.PREVIOUS);
+    }
+
+    @Override
+    public PlayerState getState() {
+        return state;
+    }
+
+    @Override
+    public void setState(PlayerState state) {
+        this.state = state;
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    @Override
+    public void setPlaying(boolean playing) {
+        this.playing = playing;
+    }
+
+    @Override
+    public int getCurrentTrack() {
+        return currentTrack;
+    }
+
+    @Override
+    public void setCurrentTrack(int currentTrack) {
+        this.currentTrack = currentTrack;
+    }
+
+    @Override
+    public Tracks getTracks() {
+        return tracks;
+    }
+}
@@ -0,0 +1,5 @@
+package pattern.state.engine;
+
+public enum PlayerState {
+    READY, PLAYING, LOCKED
+}
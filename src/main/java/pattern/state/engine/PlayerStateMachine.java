@@ -0,0 +1,60 @@
+package pattern.state.engine;
+
+import static pattern.state.engine.PlayerEvent.LOCK;
+import static pattern.state.engine.PlayerEvent.NEXT;
+import static pattern.state.engine.PlayerEvent.PLAY;
+import static pattern.state.engine.PlayerEvent.PREVIOUS;
+import static pattern.state.engine.PlayerState.LOCKED;
+import static pattern.state.engine.PlayerState.PLAYING;
+import static pattern.state.engine.PlayerState.READY;
+
+// Same behaviour as ReadyState, PlayingState and LockedState, as one shared table. Tracks come from the
+// context's playlist, whose messages are cached, so no transition allocates.
+public final class PlayerStateMachine {
+
+    public static final StateMachine<PlayerState, PlayerEvent, PlayerContext, String> MACHINE = StateMachine
+            .<PlayerState, PlayerEvent, PlayerContext, String>builder(PlayerState.class, PlayerEvent.class)
+            .on(READY, LOCK, LOCKED, player -> {
+                player.setPlaying(false);
+                return "Locked...";
+            })
+            .on(READY, PLAY, PLAYING, player -> player.getTracks().playing(player.getCurrentTrack()))
+            .on(READY, NEXT, "Locked...")
+            .on(READY, PREVIOUS, "Locked...")
+            .on(PLAYING, LOCK, LOCKED, player -> {
+                player.setPlaying(false);
+                player.setCurrentTrack(0);
+                return "Stop playing";
+            })
+            .on(PLAYING, PLAY, READY, "Paused...")
+            .on(PLAYING, NEXT, PlayerStateMachine::nextTrack)
+            .on(PLAYING, PREVIOUS, PlayerStateMachine::previousTrack)
+            .on(LOCKED, LOCK, player -> {
+                if (player.isPlaying()) {
+                    player.setState(READY);
+                    return "Stop playing";
+                }
+                return "Locked...";
+            })
+            .on(LOCKED, PLAY, READY, "Ready")
+            .on(LOCKED, NEXT, "Locked...")
+            .on(LOCKED, PREVIOUS, "Locked...")
+            .build();
+
+    private PlayerStateMachine() {
+    }
+
+    private static String nextTrack(PlayerContext player) {
+        Tracks tracks = player.getTracks();
+        int track = tracks.next(player.getCurrentTrack());
+        player.setCurrentTrack(track);
+        return tracks.playing(track);
+    }
+
+    private static String previousTrack(PlayerContext player) {
+        Tracks tracks = player.getTracks();
+        int track = tracks.previous(player.getCurrentTrack());
+        player.setCurrentTrack(track);
+        return tracks.playing(track);
+    }
+}
@@ -0,0 +1,104 @@
+package pattern.state.engine;
+
+// Transitions are looked up in a flat table indexed by state and event ordinals. States are plain enum
+// constants and the context is passed to each action, so firing an event allocates nothing.
+public final class StateMachine<S extends Enum<S>, E extends Enum<E>, C extends StateMachine.Context<S>, R> {
+
+    public interface Context<S> {
+        S getState();
+        void setState(S state);
+    }
+
+    @FunctionalInterface
+    public interface Action<C, R> {
+        R apply(C context);
+    }
+
+    private final int eventCount;
+    private final Object[] targets;
+    private final Object[] replies;
+    private final Object[] actions;
+
+    private StateMachine(int eventCount, Object[] targets, Object[] replies, Object[] actions) {
+        this.eventCount = eventCount;
+        this.targets = targets;
+        this.replies = replies;
+        this.actions = actions;
+    }
+
+    public static <S extends Enum<S>, E extends Enum<E>, C extends Context<S>, R> Builder<S, E, C, R> builder(
+            Class<S> states, Class<E> events) {
+        return new Builder<>(states, events);
+    }
+
+    @SuppressWarnings("unchecked")
+    public R fire(C context, E event) {
+        int cell = context.getState().ordinal() * eventCount + event.ordinal();
+        // fixed replies skip the action call, which the JIT cannot inline once the table holds several actions
+        R result = (R) replies[cell];
+        if (result == null) {
+            result = ((Action<C, R>) actions[cell]).apply(context);
+        }
+        S target = (S) targets[cell];
+        if (target != null) {
+            context.setState(target);
+        }
+        return result;
+    }
+
+    public static final class Builder<S extends Enum<S>, E extends Enum<E>, C extends Context<S>, R> {
+
+        private final S[] states;
+        private final E[] events;
+        private final Object[] targets;
+        private final Object[] replies;
+        private final Object[] actions;
+
+        private Builder(Class<S> states, Class<E> events) {
+            this.states = states.getEnumConstants();
+            this.events = events.getEnumConstants();
+            this.targets = new Object[this.states.length * this.events.length];
+            this.replies = new Object[targets.length];
+            this.actions = new Object[targets.length];
+        }
+
+        // moves to target once the action has run
+        public Builder<S, E, C, R> on(S state, E event, S target, Action<C, R> action) {
+            int cell = state.ordinal() * events.length + event.ordinal();
+            targets[cell] = target;
+            replies[cell] = null;
+            actions[cell] = action;
+            return this;
+        }
+
+        // moves to target and answers reply, without side effects
+        public Builder<S, E, C, R> on(S state, E event, S target, R reply) {
+            int cell = state.ordinal() * events.length + event.ordinal();
+            targets[cell] = target;
+            replies[cell] = reply;
+            actions[cell] = null;
+            return this;
+        }
+
+        // stays in state, unless the action changes it through the context
+        public Builder<S, E, C, R> on(S state, E event, Action<C, R> action) {
+            return on(state, event, null, action);
+        }
+
+        public Builder<S, E, C, R> on(S state, E event, R reply) {
+            return on(state, event, null, reply);
+        }
+
+        public StateMachine<S, E, C, R> build() {
+            for (S state : states) {
+                for (E event : events) {
+                    int cell = state.ordinal() * events.length + event.ordinal();
+                    if (replies[cell] == null && actions[cell] == null) {
+                        throw new IllegalStateException("No transition for " + event + " in " + state);
+                    }
+                }
+            }
+            return new StateMachine<>(events.length, targets.clone(), replies.clone(), actions.clone());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package pattern.state.engine;
+
+import pattern.state.playlist.Playlist;
+
+// The playlist as the transition table sees it. "Playing <title>" is built the first time a track is played and
+// kept, so replaying a track allocates nothing. Tracks added to the playlist later are not cached. Racing threads may both build a message, either copy is fine.
+public final class Tracks {
+
+    // beyond this the messages are built on every call rather than cached
+    private static final int CACHED = 1 << 16;
+
+    private final Playlist playlist;
+    private final String[] messages;
+
+    public Tracks(Playlist playlist) {
+        if (playlist.size() <= 0) {
+            throw new IllegalArgumentException("A playlist needs at least one track");
+        }
+        this.playlist = playlist;
+        this.messages = playlist.size() <= CACHED ? new String[playlist.size()] : null;
+    }
+
+    public Playlist getPlaylist() {
+        return playlist;
+    }
+
+    public int size() {
+        return playlist.size();
+    }
+
+    public int next(int track) {
+        return playlist.next(track);
+    }
+
+    public int previous(int track) {
+        return playlist.previous(track);
+    }
+
+    public String playing(int track) {
+        if (messages == null || track >= messages.length) {
+            return "Playing " + playlist.title(track);
+        }
+        String message = messages[track];
+        if (message == null) {
+            message = "Playing " + playlist.title(track);
+            messages[track] = message;
+        }
+        return message;
+    }
+}
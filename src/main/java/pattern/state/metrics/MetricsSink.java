@@ -0,0 +1,11 @@
+package pattern.state.metrics;
+
+import java.util.Map;
+
+// Receives a copy of the metrics on publish, to forward them to whatever monitoring system is in use
+public interface MetricsSink {
+
+    void counter(String name, Map<String, String> tags, long value);
+
+    void gauge(String name, Map<String, String> tags, double value);
+}
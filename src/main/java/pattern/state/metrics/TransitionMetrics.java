@@ -0,0 +1,169 @@
+package pattern.state.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import pattern.state.engine.PlayerEvent;
+import pattern.state.engine.PlayerState;
+
+// Counts every (from, event, to) edge and keeps a latency histogram per event from one transition in
+// LATENCY_SAMPLING, reading the clock costs more than most transitions. Turned on with -Dplayer.metrics=true:
+// ENABLED is a static final constant, so when it is off the JIT removes the instrumented branch at each call
+// site and nothing is left to pay.
+public class TransitionMetrics implements TransitionMetricsMXBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("player.metrics");
+
+    private static final int LATENCY_SAMPLING = 16;
+
+    private static final String OBJECT_NAME = "pattern.state:type=TransitionMetrics";
+
+    private static final PlayerState[] STATES = PlayerState.values();
+    private static final PlayerEvent[] EVENTS = PlayerEvent.values();
+
+    // power of two nanosecond buckets, bucket i holds [2^(i-1), 2^i)
+    private static final int BUCKETS = 64;
+
+    public static final TransitionMetrics GLOBAL = new TransitionMetrics();
+
+    // LongAdder stripes under contention, sessions on different threads do not fight over a counter
+    private final LongAdder[] edges = new LongAdder[STATES.length * EVENTS.length * STATES.length];
+    private final LongAdder[] latencies = new LongAdder[EVENTS.length * BUCKETS];
+
+    public TransitionMetrics() {
+        for (int i = 0; i < edges.length; i++) {
+            edges[i] = new LongAdder();
+        }
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = new LongAdder();
+        }
+    }
+
+    public static boolean sampleLatency() {
+        return ThreadLocalRandom.current().nextInt(LATENCY_SAMPLING) == 0;
+    }
+
+    public void record(PlayerState from, PlayerEvent event, PlayerState to) {
+        edges[edge(from, event, to)].increment();
+    }
+
+    public void record(PlayerState from, PlayerEvent event, PlayerState to, long nanos) {
+        record(from, event, to);
+        latencies[event.ordinal() * BUCKETS + (BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0)))].increment();
+    }
+
+    public long count(PlayerState from, PlayerEvent event, PlayerState to) {
+        return edges[edge(from, event, to)].sum();
+    }
+
+    // upper bound of the bucket holding the quantile, precise to a factor of two
+    public long latencyNanos(PlayerEvent event, double quantile) {
+        long[] buckets = latencyBuckets(event);
+        long total = 0;
+        for (long bucket : buckets) {
+            total += bucket;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank && seen > 0) {
+                return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return 0;
+    }
+
+    long[] latencyBuckets(PlayerEvent event) {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = latencies[event.ordinal() * BUCKETS + i].sum();
+        }
+        return buckets;
+    }
+
+    public void publish(MetricsSink sink) {
+        for (PlayerState from : STATES) {
+            for (PlayerEvent event : EVENTS) {
+                for (PlayerState to : STATES) {
+                    long count = count(from, event, to);
+                    if (count > 0) {
+                        sink.counter("player.transitions", Map.of("from", from.name(), "event", event.name(),
+                                "to", to.name()), count);
+                    }
+                }
+            }
+        }
+        for (PlayerEvent event : EVENTS) {
+            sink.gauge("player.transition.latency", Map.of("event", event.name(), "quantile", "0.5"),
+                    latencyNanos(event, 0.5) / 1e3);
+            sink.gauge("player.transition.latency", Map.of("event", event.name(), "quantile", "0.99"),
+                    latencyNanos(event, 0.99) / 1e3);
+        }
+    }
+
+    public static void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(GLOBAL, name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getTransitionCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (PlayerState from : STATES) {
+            for (PlayerEvent event : EVENTS) {
+                for (PlayerState to : STATES) {
+                    long count = count(from, event, to);
+                    if (count > 0) {
+                        counts.put(from + " -" + event + "-> " + to, count);
+                    }
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP50Micros() {
+        return latencyMicros(0.5);
+    }
+
+    @Override
+    public Map<String, Double> getLatencyP99Micros() {
+        return latencyMicros(0.99);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder edge : edges) {
+            edge.reset();
+        }
+        for (LongAdder latency : latencies) {
+            latency.reset();
+        }
+    }
+
+    private Map<String, Double> latencyMicros(double quantile) {
+        Map<String, Double> micros = new LinkedHashMap<>();
+        for (PlayerEvent event : EVENTS) {
+            micros.put(event.name(), latencyNanos(event, quantile) / 1e3);
+        }
+        return micros;
+    }
+
+    private static int edge(PlayerState from, PlayerEvent event, PlayerState to) {
+        return (from.ordinal() * EVENTS.length + event.ordinal()) * STATES.length + to.ordinal();
+    }
+}
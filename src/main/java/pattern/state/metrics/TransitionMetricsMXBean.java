@@ -0,0 +1,15 @@
+package pattern.state.metrics;
+
+import java.util.Map;
+
+public interface TransitionMetricsMXBean {
+
+    // "READY -PLAY-> PLAYING" to the number of times it was taken
+    Map<String, Long> getTransitionCounts();
+
+    Map<String, Double> getLatencyP50Micros();
+
+    Map<String, Double> getLatencyP99Micros();
+
+    void reset();
+}
@@ -0,0 +1,23 @@
+package pattern.state.playlist;
+
+// "Track 1" to "Track n", nothing is stored but the size
+class GeneratedPlaylist implements Playlist {
+    private final int size;
+
+    GeneratedPlaylist(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("A playlist needs at least one track, got " + size);
+        }
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String title(int position) {
+        return "Track " + (position + 1);
+    }
+}
@@ -0,0 +1,26 @@
+package pattern.state.playlist;
+
+// Positions run from 0 to size - 1 and wrap around. Titles are produced on demand, so an implementation only
+// has to keep what it cannot recompute.
+public interface Playlist {
+
+    int size();
+
+    String title(int position);
+
+    default int next(int position) {
+        return position + 1 >= size() ? 0 : position + 1;
+    }
+
+    default int previous(int position) {
+        return position <= 0 ? size() - 1 : position - 1;
+    }
+
+    default Playlist shuffled(long seed) {
+        return new ShuffledPlaylist(this, seed);
+    }
+
+    static Playlist generated(int size) {
+        return new GeneratedPlaylist(size);
+    }
+}
@@ -0,0 +1,73 @@
+package pattern.state.playlist;
+
+// Plays the source in a seeded random order without materializing it: a Feistel network is a bijection on
+// the smallest power of four covering the size, and positions that land outside are walked again until
+// they fall inside. At most four times the size, so a few rounds per step on average.
+class ShuffledPlaylist implements Playlist {
+    private static final int ROUNDS = 4;
+
+    private final Playlist source;
+    private final int size;
+    private final int halfBits;
+    private final int halfMask;
+    private final int[] keys = new int[ROUNDS];
+
+    ShuffledPlaylist(Playlist source, long seed) {
+        this.source = source;
+        this.size = source.size();
+        int bits = 2;
+        while ((1L << bits) < size) {
+            bits += 2;
+        }
+        this.halfBits = bits / 2;
+        this.halfMask = (1 << halfBits) - 1;
+        long state = seed;
+        for (int i = 0; i < ROUNDS; i++) {
+            state = mix(state + 0x9E3779B97F4A7C15L);
+            keys[i] = (int) state;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String title(int position) {
+        return source.title(sourcePosition(position));
+    }
+
+    int sourcePosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of " + size);
+        }
+        int permuted = position;
+        do {
+            permuted = permute(permuted);
+        } while (Integer.compareUnsigned(permuted, size) >= 0);
+        return permuted;
+    }
+
+    private int permute(int value) {
+        int left = value >>> halfBits;
+        int right = value & halfMask;
+        for (int key : keys) {
+            int mixed = left ^ (round(right, key) & halfMask);
+            left = right;
+            right = mixed;
+        }
+        return left << halfBits | right;
+    }
+
+    private static int round(int value, int key) {
+        int hash = (value ^ key) * 0x9E3779B1;
+        return hash ^ hash >>> 15;
+    }
+
+    private static long mix(long value) {
+        value = (value ^ value >>> 30) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ value >>> 27) * 0x94D049BB133111EBL;
+        return value ^ value >>> 31;
+    }
+}
@@ -0,0 +1,51 @@
+package pattern.state.playlist;
+
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+// Track ids in fixed-size int pages, 4 bytes a track and no copy when growing. Titles are looked up in the
+// catalog only when a track is played. It starts empty and is filled with add(), a player refuses it while it
+// is still empty.
+public class TrackPlaylist implements Playlist {
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final IntFunction<String> catalog;
+    private int[][] pages = new int[1][];
+    private int size = 0;
+
+    public TrackPlaylist(IntFunction<String> catalog) {
+        this.catalog = catalog;
+    }
+
+    public TrackPlaylist add(int trackId) {
+        int page = size >>> PAGE_BITS;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+        }
+        if (pages[page] == null) {
+            pages[page] = new int[PAGE_SIZE];
+        }
+        pages[page][size & PAGE_MASK] = trackId;
+        size++;
+        return this;
+    }
+
+    public int trackId(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of " + size);
+        }
+        return pages[position >>> PAGE_BITS][position & PAGE_MASK];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String title(int position) {
+        return catalog.apply(trackId(position));
+    }
+}
@@ -1,6 +1,8 @@
 package pattern.visitor;
 
-public class Apartment implements Visited {
+import java.util.List;
+
+public class Apartment extends Node {
 
 	private String name;
 	
@@ -8,6 +10,11 @@ public class Apartment implements Visited {
 		return name;
 	}
 	
+	public void setName(String name) {
+		this.name = name;
+		changed();
+	}
+	
 	public Apartment(String name) {
 		this.name = name;
 	}
@@ -16,4 +23,14 @@ public class Apartment implements Visited {
 	public void accept(Visitor visitor) {
 		visitor.visitApartment(this);
 	}
-}
+	
+	@Override
+	public VisitResult visit(TraversalVisitor visitor) {
+		return visitor.visitApartment(this);
+	}
+	
+	@Override
+	public List<? extends Visited> children() {
+		return List.of();
+	}
+}
\ No newline at end of file
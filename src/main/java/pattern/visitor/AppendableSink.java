@@ -0,0 +1,51 @@
+package pattern.visitor;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+class AppendableSink implements PrinterSink {
+
+	private final Appendable appendable;
+
+	AppendableSink(Appendable appendable) {
+		this.appendable = appendable;
+	}
+
+	@Override
+	public PrinterSink append(CharSequence text) {
+		try {
+			appendable.append(text);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public PrinterSink append(char c) {
+		try {
+			appendable.append(c);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (appendable instanceof Flushable flushable) {
+			flushable.flush();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (appendable instanceof Closeable closeable) {
+			closeable.close();
+		} else {
+			flush();
+		}
+	}
+}
@@ -1,26 +1,39 @@
 package pattern.visitor;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class Building implements Visited {
+public class Building extends Node {
 
 	private String name;
 	
-	private List<Floor> floors = new ArrayList<>();
+	private List<Floor> floors = List.of();
 	
 	public Building(String name) {
 		this.name = name;
 	}
 	
+	// stores a copy, later changes to the given list do not reach the graph. A floor has one parent: one that
+	// still belongs to another building is refused with an IllegalArgumentException, a null one with a
+	// NullPointerException. The floors left out are free to be added elsewhere.
 	public void setFloors(List<Floor> floors) {
-		this.floors = floors;
+		List<Floor> children = List.copyOf(floors);
+		adopt(this.floors, children);
+		this.floors = children;
 	}
 	
 	public String getName() {
 		return name;
 	}
 	
+	// CityStore's flyweight only, the name is not a change of the graph
+	void rename(String name) {
+		this.name = name;
+	}
+	
+	List<Floor> getFloors() {
+		return floors;
+	}
+	
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visitBuilding(this);
@@ -28,4 +41,14 @@ public class Building implements Visited {
 			floor.accept(visitor);
 		}
 	}
+	
+	@Override
+	public VisitResult visit(TraversalVisitor visitor) {
+		return visitor.visitBuilding(this);
+	}
+	
+	@Override
+	public List<? extends Visited> children() {
+		return floors;
+	}
 }
\ No newline at end of file
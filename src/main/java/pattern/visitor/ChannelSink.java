@@ -0,0 +1,118 @@
+package pattern.visitor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Collects characters in a buffer, encodes them to UTF-8 in a direct buffer and writes that to the file when
+// full: no lock, no intermediate String and one system call per buffer. flush only writes the buffer out,
+// sync also forces it to the disk. A lone surrogate is written as '?', like a Writer would.
+class ChannelSink implements PrinterSink {
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final FileChannel channel;
+
+	private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+	private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+	private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_SIZE * 3);
+
+	ChannelSink(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	@Override
+	public PrinterSink append(CharSequence text) {
+		int length = text.length();
+		for (int start = 0; start < length;) {
+			if (!chars.hasRemaining()) {
+				drain();
+			}
+			int end = Math.min(length, start + chars.remaining());
+			if (text instanceof String string) {
+				// CharBuffer.append would copy the range into a new String first
+				string.getChars(start, end, chars.array(), chars.position());
+				chars.position(chars.position() + end - start);
+			} else {
+				for (int i = start; i < end; i++) {
+					chars.put(text.charAt(i));
+				}
+			}
+			start = end;
+		}
+		return this;
+	}
+
+	@Override
+	public PrinterSink append(char c) {
+		if (!chars.hasRemaining()) {
+			drain();
+		}
+		chars.put(c);
+		return this;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		drain();
+	}
+
+	@Override
+	public void sync() throws IOException {
+		drain();
+		channel.force(false);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			chars.flip();
+			// the end of the input, a high surrogate still waiting for its pair is encoded on its own
+			check(encoder.encode(chars, bytes, true));
+			check(encoder.flush(bytes));
+			chars.clear();
+			write();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void drain() {
+		chars.flip();
+		// a surrogate pair split across two appends waits in chars for the next drain
+		check(encoder.encode(chars, bytes, false));
+		chars.compact();
+		write();
+	}
+
+	private static void check(CoderResult result) {
+		if (result.isError()) {
+			throw new UncheckedIOException(new IOException("Cannot encode output: " + result));
+		}
+	}
+
+	private void write() {
+		bytes.flip();
+		try {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		bytes.clear();
+	}
+}
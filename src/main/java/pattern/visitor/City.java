@@ -1,26 +1,40 @@
 package pattern.visitor;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
-public class City implements Visited {
+public class City extends Node {
 
 	private String name;
 	
-	private List<Building> buildings = new ArrayList<>();
+	private List<Building> buildings = List.of();
 	
 	public City(String name) {
 		this.name = name;
 	}
 	
+	// stores a copy, later changes to the given list do not reach the graph. A building has one parent: one that
+	// still belongs to another city is refused with an IllegalArgumentException, a null one with a
+	// NullPointerException. The buildings left out are free to be added elsewhere.
 	public void setBuildings(List<Building> buildings) {
-		this.buildings = buildings;
+		List<Building> children = List.copyOf(buildings);
+		adopt(this.buildings, children);
+		this.buildings = children;
 	}
 	
 	public String getName() {
 		return name;
 	}
 	
+	// CityStore's flyweight only, the name is not a change of the graph
+	void rename(String name) {
+		this.name = name;
+	}
+	
+	List<Building> getBuildings() {
+		return buildings;
+	}
+	
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visitCity(this);
@@ -29,4 +43,22 @@ public class City implements Visited {
 		}
 	}
 	
+	// opt-in, visitors whose output depends on the visiting order keep using accept
+	public <R> R acceptParallel(ParallelVisitor<R> visitor) {
+		return acceptParallel(visitor, ForkJoinPool.commonPool());
+	}
+	
+	public <R> R acceptParallel(ParallelVisitor<R> visitor, ForkJoinPool pool) {
+		return pool.invoke(new ParallelTraversal.CityTask<>(this, visitor));
+	}
+	
+	@Override
+	public VisitResult visit(TraversalVisitor visitor) {
+		return visitor.visitCity(this);
+	}
+	
+	@Override
+	public List<? extends Visited> children() {
+		return buildings;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,201 @@
+package pattern.visitor;
+
+import java.util.Arrays;
+import java.util.List;
+
+// The whole hierarchy of a city in a few int arrays: one name id per node, and for every parent the offset of
+// its first child, the children of parent i being [first[i], first[i + 1]). Nodes are laid out in visiting
+// order, so a walk reads every array front to back.
+public class CityStore {
+
+	private final NameDictionary names;
+
+	private final int cityName;
+
+	private final int[] buildingNames;
+
+	private final int[] firstFloor;
+
+	private final int[] floorNames;
+
+	private final int[] firstApartment;
+
+	private final int[] apartmentNames;
+
+	private CityStore(Builder builder) {
+		builder.names.seal();
+		this.names = builder.names;
+		this.cityName = builder.cityName;
+		this.buildingNames = Arrays.copyOf(builder.buildingNames.values, builder.buildingNames.size);
+		this.firstFloor = builder.firstFloor.close(builder.floorNames.size);
+		this.floorNames = Arrays.copyOf(builder.floorNames.values, builder.floorNames.size);
+		this.firstApartment = builder.firstApartment.close(builder.apartmentNames.size);
+		this.apartmentNames = Arrays.copyOf(builder.apartmentNames.values, builder.apartmentNames.size);
+	}
+
+	public static Builder builder(String city) {
+		return new Builder(city);
+	}
+
+	public static CityStore of(City city) {
+		Builder builder = builder(city.getName());
+		for (Building building : city.getBuildings()) {
+			builder.building(building.getName());
+			for (Floor floor : building.getFloors()) {
+				builder.floor(floor.getName());
+				for (Apartment apartment : floor.getApartments()) {
+					builder.apartment(apartment.getName());
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	// runs an existing visitor in the order City.accept would. One node per level is renamed as the walk goes
+	// on, with no children: a visitor must copy what it needs, a node it keeps changes under it.
+	public void accept(Visitor visitor) {
+		City city = new City(names.name(cityName));
+		Building building = new Building(null);
+		Floor floor = new Floor(null);
+		Apartment apartment = new Apartment(null);
+		visitor.visitCity(city);
+		for (int b = 0; b < buildingNames.length; b++) {
+			building.rename(names.name(buildingNames[b]));
+			visitor.visitBuilding(building);
+			for (int f = firstFloor[b]; f < firstFloor[b + 1]; f++) {
+				floor.rename(names.name(floorNames[f]));
+				visitor.visitFloor(floor);
+				for (int a = firstApartment[f]; a < firstApartment[f + 1]; a++) {
+					apartment.setName(names.name(apartmentNames[a]));
+					visitor.visitApartment(apartment);
+				}
+			}
+		}
+	}
+
+	// rebuilds the object graph, for code that needs more than a visitor
+	public City toCity() {
+		City city = new City(names.name(cityName));
+		Building[] buildings = new Building[buildingNames.length];
+		for (int building = 0; building < buildings.length; building++) {
+			buildings[building] = new Building(names.name(buildingNames[building]));
+			Floor[] floors = new Floor[firstFloor[building + 1] - firstFloor[building]];
+			for (int floor = 0; floor < floors.length; floor++) {
+				int index = firstFloor[building] + floor;
+				floors[floor] = new Floor(names.name(floorNames[index]));
+				Apartment[] apartments = new Apartment[firstApartment[index + 1] - firstApartment[index]];
+				for (int apartment = 0; apartment < apartments.length; apartment++) {
+					apartments[apartment] = new Apartment(names.name(apartmentNames[firstApartment[index] + apartment]));
+				}
+				floors[floor].setApartments(List.of(apartments));
+			}
+			buildings[building].setFloors(List.of(floors));
+		}
+		city.setBuildings(List.of(buildings));
+		return city;
+	}
+
+	public int buildingCount() {
+		return buildingNames.length;
+	}
+
+	public int floorCount() {
+		return floorNames.length;
+	}
+
+	public int apartmentCount() {
+		return apartmentNames.length;
+	}
+
+	public int distinctNames() {
+		return names.size();
+	}
+
+	public String apartmentName(int apartment) {
+		return names.name(apartmentNames[apartment]);
+	}
+
+	// appends in visiting order: a floor belongs to the last building added, an apartment to the last floor.
+	// Single use, the built store takes over the dictionary.
+	public static class Builder {
+
+		private final NameDictionary names = new NameDictionary();
+
+		private final int cityName;
+
+		private final IntArray buildingNames = new IntArray();
+
+		private final IntArray firstFloor = new IntArray();
+
+		private final IntArray floorNames = new IntArray();
+
+		private final IntArray firstApartment = new IntArray();
+
+		private final IntArray apartmentNames = new IntArray();
+
+		private boolean built;
+
+		private Builder(String city) {
+			this.cityName = names.intern(city);
+		}
+
+		public Builder building(String name) {
+			checkNotBuilt();
+			buildingNames.add(names.intern(name));
+			firstFloor.add(floorNames.size);
+			return this;
+		}
+
+		public Builder floor(String name) {
+			checkNotBuilt();
+			if (buildingNames.size == 0) {
+				throw new IllegalStateException("Add a building before its floors");
+			}
+			floorNames.add(names.intern(name));
+			firstApartment.add(apartmentNames.size);
+			return this;
+		}
+
+		public Builder apartment(String name) {
+			checkNotBuilt();
+			if (floorNames.size == 0) {
+				throw new IllegalStateException("Add a floor before its apartments");
+			}
+			apartmentNames.add(names.intern(name));
+			return this;
+		}
+
+		public CityStore build() {
+			checkNotBuilt();
+			built = true;
+			return new CityStore(this);
+		}
+
+		private void checkNotBuilt() {
+			if (built) {
+				throw new IllegalStateException("The store is already built, start a new builder");
+			}
+		}
+	}
+
+	private static final class IntArray {
+
+		private int[] values = new int[16];
+
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		// the offsets with the end of the last range appended
+		int[] close(int end) {
+			int[] offsets = Arrays.copyOf(values, size + 1);
+			offsets[size] = end;
+			return offsets;
+		}
+	}
+}
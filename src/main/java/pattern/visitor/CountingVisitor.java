@@ -0,0 +1,62 @@
+package pattern.visitor;
+
+// Counts every kind of element and the characters of their names, the same result in either traversal mode
+public class CountingVisitor implements ParallelVisitor<CountingVisitor.Counts> {
+
+	public record Counts(long cities, long buildings, long floors, long apartments, long nameLength) {
+
+		Counts plus(Counts other) {
+			return new Counts(cities + other.cities, buildings + other.buildings, floors + other.floors,
+					apartments + other.apartments, nameLength + other.nameLength);
+		}
+	}
+
+	private long cities;
+
+	private long buildings;
+
+	private long floors;
+
+	private long apartments;
+
+	private long nameLength;
+
+	@Override
+	public void visitCity(City city) {
+		cities++;
+		nameLength += city.getName().length();
+	}
+
+	@Override
+	public void visitBuilding(Building building) {
+		buildings++;
+		nameLength += building.getName().length();
+	}
+
+	@Override
+	public void visitFloor(Floor floor) {
+		floors++;
+		nameLength += floor.getName().length();
+	}
+
+	@Override
+	public void visitApartment(Apartment apartment) {
+		apartments++;
+		nameLength += apartment.getName().length();
+	}
+
+	@Override
+	public ParallelVisitor<Counts> fork() {
+		return new CountingVisitor();
+	}
+
+	@Override
+	public Counts result() {
+		return new Counts(cities, buildings, floors, apartments, nameLength);
+	}
+
+	@Override
+	public Counts combine(Counts left, Counts right) {
+		return left.plus(right);
+	}
+}
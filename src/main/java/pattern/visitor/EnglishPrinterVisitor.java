@@ -2,23 +2,33 @@ package pattern.visitor;
 
 public class EnglishPrinterVisitor implements Visitor {
 
+	private final PrinterSink sink;
+
+	public EnglishPrinterVisitor() {
+		this(PrinterSink.of(System.out));
+	}
+
+	public EnglishPrinterVisitor(PrinterSink sink) {
+		this.sink = sink;
+	}
+
 	@Override
 	public void visitCity(City city) {
-		System.out.println("City: " + city.getName());
+		sink.append("City: ").append(city.getName()).newLine();
 	}
 
 	@Override
 	public void visitBuilding(Building building) {
-		System.out.println("	Building: " + building.getName());
+		sink.append("\tBuilding: ").append(building.getName()).newLine();
 	}
 
 	@Override
 	public void visitFloor(Floor floor) {
-		System.out.println("		Floor: " + floor.getName());
+		sink.append("\t\tFloor: ").append(floor.getName()).newLine();
 	}
 
 	@Override
 	public void visitApartment(Apartment apartment) {
-		System.out.println("			Apartment: " + apartment.getName());
+		sink.append("\t\t\tApartment: ").append(apartment.getName()).newLine();
 	}
 }
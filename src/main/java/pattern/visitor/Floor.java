@@ -1,26 +1,39 @@
 package pattern.visitor;
 
-import java.util.ArrayList;
 import java.util.List;
 
-public class Floor implements Visited {
+public class Floor extends Node {
 
 	private String name;
 	
-	private List<Apartment> apartments = new ArrayList<>();
+	private List<Apartment> apartments = List.of();
 	
 	public Floor(String name) {
 		this.name = name;
 	}
 	
+	// stores a copy, later changes to the given list do not reach the graph. An apartment has one parent: one that
+	// still belongs to another floor is refused with an IllegalArgumentException, a null one with a
+	// NullPointerException. The apartments left out are free to be added elsewhere.
 	public void setApartments(List<Apartment> apartments) {
-		this.apartments = apartments;
+		List<Apartment> children = List.copyOf(apartments);
+		adopt(this.apartments, children);
+		this.apartments = children;
 	}
 	
 	public String getName() {
 		return name;
 	}
 	
+	// CityStore's flyweight only, the name is not a change of the graph
+	void rename(String name) {
+		this.name = name;
+	}
+	
+	List<Apartment> getApartments() {
+		return apartments;
+	}
+	
 	@Override
 	public void accept(Visitor visitor) {
 		visitor.visitFloor(this);
@@ -28,4 +41,14 @@ public class Floor implements Visited {
 			apartment.accept(visitor);
 		}
 	}
+	
+	@Override
+	public VisitResult visit(TraversalVisitor visitor) {
+		return visitor.visitFloor(this);
+	}
+	
+	@Override
+	public List<? extends Visited> children() {
+		return apartments;
+	}
 }
\ No newline at end of file
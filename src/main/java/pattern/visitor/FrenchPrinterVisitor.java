@@ -2,23 +2,33 @@ package pattern.visitor;
 
 public class FrenchPrinterVisitor implements Visitor {
 
+	private final PrinterSink sink;
+
+	public FrenchPrinterVisitor() {
+		this(PrinterSink.of(System.out));
+	}
+
+	public FrenchPrinterVisitor(PrinterSink sink) {
+		this.sink = sink;
+	}
+
 	@Override
 	public void visitCity(City city) {
-		System.out.println("Ville: " + city.getName());
+		sink.append("Ville: ").append(city.getName()).newLine();
 	}
 
 	@Override
 	public void visitBuilding(Building building) {
-		System.out.println("	Immeuble: " + building.getName());
+		sink.append("\tImmeuble: ").append(building.getName()).newLine();
 	}
 
 	@Override
 	public void visitFloor(Floor floor) {
-		System.out.println("		Etage: " + floor.getName());
+		sink.append("\t\tEtage: ").append(floor.getName()).newLine();
 	}
 
 	@Override
 	public void visitApartment(Apartment apartment) {
-		System.out.println("			Appartement: " + apartment.getName());
+		sink.append("\t\t\tAppartement: ").append(apartment.getName()).newLine();
 	}
 }
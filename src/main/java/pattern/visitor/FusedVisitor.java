@@ -0,0 +1,125 @@
+package pattern.visitor;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Several visitors in one depth-first walk: every node goes to each visitor still interested in it. A visitor
+// skipping a subtree is left out until the walk comes back up to its level, one that stops is left out for
+// good, and the walk itself is pruned or stopped once every visitor agrees. Levels are what tells a subtree
+// apart, so this only works under Traversal.depthFirst.
+public class FusedVisitor implements TraversalVisitor {
+
+	private static final int ACTIVE = Integer.MAX_VALUE;
+
+	private static final int STOPPED = -1;
+
+	private static final int CITY = 0;
+
+	private static final int BUILDING = 1;
+
+	private static final int FLOOR = 2;
+
+	private static final int APARTMENT = 3;
+
+	private final TraversalVisitor[] visitors;
+
+	// per visitor, the level it skipped the subtree of, ACTIVE or STOPPED
+	private final int[] skippedAt;
+
+	private int stopped;
+
+	public FusedVisitor(List<? extends TraversalVisitor> visitors) {
+		this.visitors = visitors.toArray(new TraversalVisitor[0]);
+		this.skippedAt = new int[this.visitors.length];
+	}
+
+	public static FusedVisitor of(Visitor... visitors) {
+		return new FusedVisitor(Arrays.stream(visitors).map(TraversalVisitor::of).toList());
+	}
+
+	// every run starts with all visitors interested, whatever the previous run left
+	public VisitResult run(Visited root) {
+		Arrays.fill(skippedAt, ACTIVE);
+		stopped = 0;
+		return Traversal.depthFirst(root, this);
+	}
+
+	@Override
+	public VisitResult visitCity(City city) {
+		int continuing = 0;
+		for (int i = 0; i < visitors.length; i++) {
+			if (interested(i, CITY)) {
+				continuing += record(i, CITY, visitors[i].visitCity(city));
+			}
+		}
+		return result(continuing);
+	}
+
+	@Override
+	public VisitResult visitBuilding(Building building) {
+		int continuing = 0;
+		for (int i = 0; i < visitors.length; i++) {
+			if (interested(i, BUILDING)) {
+				continuing += record(i, BUILDING, visitors[i].visitBuilding(building));
+			}
+		}
+		return result(continuing);
+	}
+
+	@Override
+	public VisitResult visitFloor(Floor floor) {
+		int continuing = 0;
+		for (int i = 0; i < visitors.length; i++) {
+			if (interested(i, FLOOR)) {
+				continuing += record(i, FLOOR, visitors[i].visitFloor(floor));
+			}
+		}
+		return result(continuing);
+	}
+
+	@Override
+	public VisitResult visitApartment(Apartment apartment) {
+		int continuing = 0;
+		for (int i = 0; i < visitors.length; i++) {
+			if (interested(i, APARTMENT)) {
+				continuing += record(i, APARTMENT, visitors[i].visitApartment(apartment));
+			}
+		}
+		return result(continuing);
+	}
+
+	private boolean interested(int visitor, int level) {
+		int skipped = skippedAt[visitor];
+		if (skipped == ACTIVE) {
+			return true;
+		}
+		if (skipped != STOPPED && level <= skipped) {
+			// back at or above the level it skipped from, the subtree is behind us
+			skippedAt[visitor] = ACTIVE;
+			return true;
+		}
+		return false;
+	}
+
+	private int record(int visitor, int level, VisitResult result) {
+		return switch (result) {
+		case CONTINUE -> 1;
+		case SKIP_SUBTREE -> {
+			skippedAt[visitor] = level;
+			yield 0;
+		}
+		case STOP -> {
+			skippedAt[visitor] = STOPPED;
+			stopped++;
+			yield 0;
+		}
+		};
+	}
+
+	private VisitResult result(int continuing) {
+		if (stopped == visitors.length) {
+			return VisitResult.STOP;
+		}
+		return continuing == 0 ? VisitResult.SKIP_SUBTREE : VisitResult.CONTINUE;
+	}
+}
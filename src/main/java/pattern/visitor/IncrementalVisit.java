@@ -0,0 +1,53 @@
+package pattern.visitor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+// Keeps the result of an aggregating visitor for every node along with the node's version. A new visit only
+// goes down where the version moved: after one apartment changes, that is the path from the city to it, and
+// the siblings along the path answer from the cache. Nodes dropped from the graph leave the cache with it.
+public class IncrementalVisit<R> {
+
+	private static final long UNTRACKED = -1;
+
+	private final ParallelVisitor<R> visitor;
+
+	private final Map<Visited, Cached<R>> cache = new WeakHashMap<>();
+
+	private long recomputed;
+
+	public IncrementalVisit(ParallelVisitor<R> visitor) {
+		this.visitor = visitor;
+	}
+
+	public R visit(Visited node) {
+		Cached<R> cached = cache.get(node);
+		// a node from outside the graph has no version, it is recomputed on every visit
+		long version = node instanceof Node tracked ? tracked.getVersion() : UNTRACKED;
+		if (cached != null && cached.version == version) {
+			return cached.result;
+		}
+		recomputed++;
+		// the node on its own, through a fresh fork, then its children from the cache or recomputed
+		ParallelVisitor<R> own = visitor.fork();
+		node.visit(TraversalVisitor.of(own));
+		R result = own.result();
+		List<? extends Visited> children = node.children();
+		for (int i = 0; i < children.size(); i++) {
+			result = visitor.combine(result, visit(children.get(i)));
+		}
+		if (version != UNTRACKED) {
+			cache.put(node, new Cached<>(version, result));
+		}
+		return result;
+	}
+
+	// nodes recomputed over all visits so far
+	public long getRecomputed() {
+		return recomputed;
+	}
+
+	private record Cached<R>(long version, R result) {
+	}
+}
@@ -0,0 +1,42 @@
+package pattern.visitor;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Each distinct name stored once, nodes refer to it by index
+final class NameDictionary {
+
+	private final Map<String, Integer> ids = new HashMap<>();
+
+	private String[] names = new String[16];
+
+	private int size;
+
+	int intern(String name) {
+		Integer id = ids.get(name);
+		if (id != null) {
+			return id;
+		}
+		if (size == names.length) {
+			names = Arrays.copyOf(names, size * 2);
+		}
+		names[size] = name;
+		ids.put(name, size);
+		return size++;
+	}
+
+	String name(int id) {
+		return names[id];
+	}
+
+	int size() {
+		return size;
+	}
+
+	// the lookup map only serves building, a finished store keeps the array
+	void seal() {
+		ids.clear();
+		names = Arrays.copyOf(names, size);
+	}
+}
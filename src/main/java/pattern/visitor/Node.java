@@ -0,0 +1,41 @@
+package pattern.visitor;
+
+import java.util.List;
+
+// Parent link and change counter shared by the nodes of the graph. A change bumps the version of the node and
+// of every ancestor, so an unchanged version means an unchanged subtree. A node has one parent: it has to be
+// left out of its parent's children before another node can adopt it.
+abstract class Node implements Visited {
+
+	private Node parent;
+
+	private long version;
+
+	// only the graph's own nodes track changes, Visited does not ask outside implementations for it
+	public long getVersion() {
+		return version;
+	}
+
+	// replaces the previous children, the ones left out are free to be adopted elsewhere
+	void adopt(List<? extends Node> previous, List<? extends Node> children) {
+		for (Node child : children) {
+			if (child.parent != null && child.parent != this) {
+				throw new IllegalArgumentException(child.getClass().getSimpleName() + " already belongs to another "
+						+ child.parent.getClass().getSimpleName());
+			}
+		}
+		for (Node child : previous) {
+			child.parent = null;
+		}
+		for (Node child : children) {
+			child.parent = this;
+		}
+		changed();
+	}
+
+	void changed() {
+		for (Node node = this; node != null; node = node.parent) {
+			node.version++;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package pattern.visitor;
+
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+// Splits the buildings of a city, then the floors of each building, in halves until the pieces are small
+// enough to visit sequentially. Parents are visited before their children within a task, but there is no
+// order across tasks. The tasks are RecursiveTasks only to be forked, none is ever serialized.
+final class ParallelTraversal {
+
+	// floors visited by one task, a floor holds a few dozen apartments
+	static final int FLOORS_PER_TASK = 8;
+
+	private ParallelTraversal() {
+	}
+
+	@SuppressWarnings("serial")
+	static final class CityTask<R> extends RecursiveTask<R> {
+
+		private final City city;
+
+		private final ParallelVisitor<R> visitor;
+
+		CityTask(City city, ParallelVisitor<R> visitor) {
+			this.city = city;
+			this.visitor = visitor;
+		}
+
+		// the city goes to a fork too, the given visitor only forks and combines and can be passed again
+		@Override
+		protected R compute() {
+			ParallelVisitor<R> own = visitor.fork();
+			own.visitCity(city);
+			List<Building> buildings = city.getBuildings();
+			if (buildings.isEmpty()) {
+				return own.result();
+			}
+			R children = new BuildingsTask<>(buildings, 0, buildings.size(), visitor).compute();
+			return visitor.combine(own.result(), children);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class BuildingsTask<R> extends RecursiveTask<R> {
+
+		private final List<Building> buildings;
+
+		private final int from;
+
+		private final int to;
+
+		private final ParallelVisitor<R> visitor;
+
+		BuildingsTask(List<Building> buildings, int from, int to, ParallelVisitor<R> visitor) {
+			this.buildings = buildings;
+			this.from = from;
+			this.to = to;
+			this.visitor = visitor;
+		}
+
+		@Override
+		protected R compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				BuildingsTask<R> left = new BuildingsTask<>(buildings, from, middle, visitor);
+				left.fork();
+				R right = new BuildingsTask<>(buildings, middle, to, visitor).compute();
+				return visitor.combine(left.join(), right);
+			}
+			Building building = buildings.get(from);
+			ParallelVisitor<R> own = visitor.fork();
+			own.visitBuilding(building);
+			List<Floor> floors = building.getFloors();
+			if (floors.isEmpty()) {
+				return own.result();
+			}
+			return visitor.combine(own.result(), new FloorsTask<>(floors, 0, floors.size(), visitor).compute());
+		}
+	}
+
+	@SuppressWarnings("serial")
+	static final class FloorsTask<R> extends RecursiveTask<R> {
+
+		private final List<Floor> floors;
+
+		private final int from;
+
+		private final int to;
+
+		private final ParallelVisitor<R> visitor;
+
+		FloorsTask(List<Floor> floors, int from, int to, ParallelVisitor<R> visitor) {
+			this.floors = floors;
+			this.from = from;
+			this.to = to;
+			this.visitor = visitor;
+		}
+
+		@Override
+		protected R compute() {
+			if (to - from > FLOORS_PER_TASK) {
+				int middle = (from + to) >>> 1;
+				FloorsTask<R> left = new FloorsTask<>(floors, from, middle, visitor);
+				left.fork();
+				R right = new FloorsTask<>(floors, middle, to, visitor).compute();
+				return visitor.combine(left.join(), right);
+			}
+			ParallelVisitor<R> own = visitor.fork();
+			for (int i = from; i < to; i++) {
+				floors.get(i).accept(own);
+			}
+			return own.result();
+		}
+	}
+}
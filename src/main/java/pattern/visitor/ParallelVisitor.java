@@ -0,0 +1,10 @@
+package pattern.visitor;
+
+// A visitor that can be split across threads: every fork task visits its part of the graph with its own
+// fork(), so the visitor itself needs no synchronization, and the partial results are merged with combine.
+// fork and combine are called from pool threads.
+public interface ParallelVisitor<R> extends Visitor {
+	ParallelVisitor<R> fork();
+	R result();
+	R combine(R left, R right);
+}
@@ -0,0 +1,38 @@
+package pattern.visitor;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+
+// Where the printer visitors write. Parts of a line are appended one by one instead of being concatenated
+// first, and only the sink decides when to flush.
+public interface PrinterSink extends Flushable, Closeable {
+
+	PrinterSink append(CharSequence text);
+
+	PrinterSink append(char c);
+
+	default PrinterSink newLine() {
+		return append(System.lineSeparator());
+	}
+
+	// flush only hands the output over, sync also waits until it is on the disk where the sink has one
+	default void sync() throws IOException {
+		flush();
+	}
+
+	// a StringBuilder for in-memory output, a BufferedWriter, System.out...
+	static PrinterSink of(Appendable appendable) {
+		return new AppendableSink(appendable);
+	}
+
+	static PrinterSink toFile(Path path) {
+		try {
+			return new ChannelSink(path);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
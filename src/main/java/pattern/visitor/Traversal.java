@@ -0,0 +1,49 @@
+package pattern.visitor;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+// Walks the graph with an explicit stack or queue instead of nested accept calls, so depth costs heap rather
+// than thread stack and the visitor can prune or stop the walk.
+public final class Traversal {
+
+	private Traversal() {
+	}
+
+	// parents before children, children in list order: the order accept visits in
+	public static VisitResult depthFirst(Visited root, TraversalVisitor visitor) {
+		ArrayDeque<Visited> stack = new ArrayDeque<>();
+		stack.push(root);
+		while (!stack.isEmpty()) {
+			Visited node = stack.pop();
+			VisitResult result = node.visit(visitor);
+			if (result == VisitResult.STOP) {
+				return VisitResult.STOP;
+			}
+			if (result == VisitResult.CONTINUE) {
+				List<? extends Visited> children = node.children();
+				for (int i = children.size() - 1; i >= 0; i--) {
+					stack.push(children.get(i));
+				}
+			}
+		}
+		return VisitResult.CONTINUE;
+	}
+
+	// level by level, every building before any floor
+	public static VisitResult breadthFirst(Visited root, TraversalVisitor visitor) {
+		ArrayDeque<Visited> queue = new ArrayDeque<>();
+		queue.add(root);
+		while (!queue.isEmpty()) {
+			Visited node = queue.poll();
+			VisitResult result = node.visit(visitor);
+			if (result == VisitResult.STOP) {
+				return VisitResult.STOP;
+			}
+			if (result == VisitResult.CONTINUE) {
+				queue.addAll(node.children());
+			}
+		}
+		return VisitResult.CONTINUE;
+	}
+}
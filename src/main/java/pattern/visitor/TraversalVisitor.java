@@ -0,0 +1,50 @@
+package pattern.visitor;
+
+// A visitor driven by a Traversal, its answers prune or end the walk. Everything continues by default.
+public interface TraversalVisitor {
+
+	default VisitResult visitCity(City city) {
+		return VisitResult.CONTINUE;
+	}
+
+	default VisitResult visitBuilding(Building building) {
+		return VisitResult.CONTINUE;
+	}
+
+	default VisitResult visitFloor(Floor floor) {
+		return VisitResult.CONTINUE;
+	}
+
+	default VisitResult visitApartment(Apartment apartment) {
+		return VisitResult.CONTINUE;
+	}
+
+	// runs a plain visitor over the whole graph
+	static TraversalVisitor of(Visitor visitor) {
+		return new TraversalVisitor() {
+			@Override
+			public VisitResult visitCity(City city) {
+				visitor.visitCity(city);
+				return VisitResult.CONTINUE;
+			}
+
+			@Override
+			public VisitResult visitBuilding(Building building) {
+				visitor.visitBuilding(building);
+				return VisitResult.CONTINUE;
+			}
+
+			@Override
+			public VisitResult visitFloor(Floor floor) {
+				visitor.visitFloor(floor);
+				return VisitResult.CONTINUE;
+			}
+
+			@Override
+			public VisitResult visitApartment(Apartment apartment) {
+				visitor.visitApartment(apartment);
+				return VisitResult.CONTINUE;
+			}
+		};
+	}
+}
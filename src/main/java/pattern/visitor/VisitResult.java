@@ -0,0 +1,9 @@
+package pattern.visitor;
+
+public enum VisitResult {
+	CONTINUE,
+	// the children of the node just visited are not visited
+	SKIP_SUBTREE,
+	// nothing more is visited
+	STOP
+}
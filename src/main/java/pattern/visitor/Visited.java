@@ -1,5 +1,17 @@
 package pattern.visitor;
 
+import java.util.List;
+
 public interface Visited {
 	void accept(Visitor visitor);
+	
+	// one step of a Traversal: visits this node only, the traversal decides about the children. Implementations
+	// from outside the graph are passed over, like a TraversalVisitor passes over what it does not override.
+	default VisitResult visit(TraversalVisitor visitor) {
+		return VisitResult.CONTINUE;
+	}
+	
+	default List<? extends Visited> children() {
+		return List.of();
+	}
 }
@@ -0,0 +1,109 @@
+package pattern.state;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerCommandQueueTests {
+
+	@Test
+	void commandsRunInOrderOnOneWorker() throws Exception {
+		List<String> threads = new ArrayList<>();
+		List<String> replies = new ArrayList<>();
+		try (PlayerCommandQueue commands = new PlayerCommandQueue(new Player(), reply -> { })) {
+			commands.submit(player -> record(threads, replies, player.play()));
+			commands.submit(player -> record(threads, replies, player.next()));
+			commands.submit(player -> record(threads, replies, player.next()));
+			commands.submit(player -> record(threads, replies, player.previous()));
+			commands.submit(player -> record(threads, replies, player.lock()));
+			CountDownLatch done = new CountDownLatch(1);
+			commands.submit(player -> {
+				done.countDown();
+				return "done";
+			});
+			assertTrue(done.await(10, TimeUnit.SECONDS));
+		}
+
+		assertEquals(List.of("Playing Track 1", "Playing Track 2", "Playing Track 3", "Playing Track 2", "Stop playing"),
+				replies);
+		assertEquals(List.of("player-commands"), threads.stream().distinct().toList());
+	}
+
+	@Test
+	void repliesWaitingForTheEventThreadAreCoalesced() throws Exception {
+		List<String> displayed = new CopyOnWriteArrayList<>();
+		try (PlayerCommandQueue commands = new PlayerCommandQueue(new Player(), displayed::add)) {
+			CountDownLatch edtBusy = new CountDownLatch(1);
+			CountDownLatch releaseEdt = new CountDownLatch(1);
+			SwingUtilities.invokeLater(() -> {
+				edtBusy.countDown();
+				await(releaseEdt);
+			});
+			assertTrue(edtBusy.await(10, TimeUnit.SECONDS));
+
+			commands.submit(Player::play);
+			for (int i = 0; i < 99; i++) {
+				commands.submit(Player::next);
+			}
+			// holds the worker once every earlier reply is published, so nothing is published after the EDT resumes
+			CountDownLatch published = new CountDownLatch(1);
+			CountDownLatch releaseWorker = new CountDownLatch(1);
+			commands.submit(player -> {
+				published.countDown();
+				await(releaseWorker);
+				return "released";
+			});
+			assertTrue(published.await(10, TimeUnit.SECONDS));
+			releaseEdt.countDown();
+			SwingUtilities.invokeAndWait(() -> { });
+
+			assertEquals(List.of("Playing Track 4"), displayed);
+			releaseWorker.countDown();
+		}
+	}
+
+	@Test
+	void closeStopsTheDaemonThread() throws Exception {
+		PlayerCommandQueue commands = new PlayerCommandQueue(new Player(), reply -> { });
+		CompletableFuture<Thread> worker = new CompletableFuture<>();
+		commands.submit(player -> {
+			worker.complete(Thread.currentThread());
+			return "started";
+		});
+		Thread thread = worker.get(10, TimeUnit.SECONDS);
+		assertTrue(thread.isDaemon());
+
+		commands.close();
+		thread.join(TimeUnit.SECONDS.toMillis(10));
+
+		assertFalse(thread.isAlive());
+		assertThrows(RejectedExecutionException.class, () -> commands.submit(Player::play));
+	}
+
+	private static String record(List<String> threads, List<String> replies, String reply) {
+		threads.add(Thread.currentThread().getName());
+		replies.add(reply);
+		return reply;
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
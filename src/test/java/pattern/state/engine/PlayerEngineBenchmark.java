@@ -0,0 +1,148 @@
+package pattern.state.engine;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hand-rolled, the build has no JMH.
+// Run with: java -cp target/classes:target/test-classes pattern.state.engine.PlayerEngineBenchmark [max threads] [sessions] [seconds]
+public class PlayerEngineBenchmark {
+
+    private static final int COMMANDS = 1 << 16;
+
+    private static final int HOT_SESSIONS = 4;
+
+    private static int sink;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 2;
+        System.out.println(String.format("sessions=%d, cores=%d", sessions, Runtime.getRuntime().availableProcessors()));
+
+        PlayerEngine engine = new PlayerEngine(sessions);
+        PlayerSession[] locked = new PlayerSession[sessions];
+        for (int i = 0; i < sessions; i++) {
+            engine.open();
+            locked[i] = new PlayerSession();
+        }
+        // warm-up
+        throughput(maxThreads, 1, (session, event) -> engine.fire(session, event), sessions);
+        throughput(maxThreads, 1, (session, event) -> fireLocked(locked[session], event), sessions);
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            report("engine", threads, throughput(threads, seconds, (session, event) -> engine.fire(session, event), sessions));
+            report("locked", threads, throughput(threads, seconds, (session, event) -> fireLocked(locked[session], event), sessions));
+        }
+        stress(maxThreads, seconds);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // the baseline: one monitor per session around the single-threaded player
+    private static String fireLocked(PlayerSession session, PlayerEvent event) {
+        synchronized (session) {
+            return PlayerStateMachine.MACHINE.fire(session, event);
+        }
+    }
+
+    private static double throughput(int threads, double seconds, Command command, int sessions)
+            throws InterruptedException {
+        LongAdder total = new LongAdder();
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        run(threads, thread -> {
+            Random random = new Random(thread);
+            int[] targets = new int[COMMANDS];
+            PlayerEvent[] events = new PlayerEvent[COMMANDS];
+            for (int i = 0; i < COMMANDS; i++) {
+                targets[i] = random.nextInt(sessions);
+                events[i] = PlayerEvent.values()[random.nextInt(PlayerEvent.values().length)];
+            }
+            long count = 0;
+            int hash = 0;
+            while (System.nanoTime() < deadline) {
+                for (int i = 0; i < 1024; i++) {
+                    int next = (int) (count++ & (COMMANDS - 1));
+                    hash += command.apply(targets[next], events[next]).length();
+                }
+            }
+            sink += hash;
+            total.add(count);
+        });
+        return total.sum() / seconds;
+    }
+
+    // all threads hammer a few sessions with next/previous, a lost update would leave the wrong track
+    private static void stress(int threads, double seconds) throws InterruptedException {
+        PlayerEngine engine = new PlayerEngine(HOT_SESSIONS);
+        for (int i = 0; i < HOT_SESSIONS; i++) {
+            engine.play(engine.open());
+        }
+        AtomicIntegerArray moves = new AtomicIntegerArray(HOT_SESSIONS);
+        LongAdder total = new LongAdder();
+        long deadline = System.nanoTime() + (long) (seconds * 1e9);
+        run(threads, thread -> {
+            Random random = new Random(thread);
+            int[] local = new int[HOT_SESSIONS];
+            long count = 0;
+            while (System.nanoTime() < deadline) {
+                int session = random.nextInt(HOT_SESSIONS);
+                if (random.nextBoolean()) {
+                    engine.next(session);
+                    local[session]++;
+                } else {
+                    engine.previous(session);
+                    local[session]--;
+                }
+                count++;
+            }
+            for (int i = 0; i < HOT_SESSIONS; i++) {
+                moves.addAndGet(i, local[i]);
+            }
+            total.add(count);
+        });
+        int lost = 0;
+        for (int i = 0; i < HOT_SESSIONS; i++) {
+            int expected = Math.floorMod(moves.get(i), engine.getPlaylist().size());
+            if (engine.getState(i) != PlayerState.PLAYING || engine.getCurrentTrack(i) != expected) {
+                lost++;
+            }
+        }
+        System.out.println(String.format("stress   %2d threads on %d sessions %12.0f commands/s   %d sessions inconsistent",
+                threads, HOT_SESSIONS, total.sum() / seconds, lost));
+        if (lost > 0) {
+            throw new IllegalStateException(lost + " sessions lost updates");
+        }
+    }
+
+    private static void report(String name, int threads, double commandsPerSecond) {
+        System.out.println(String.format("%-8s %2d threads %12.0f commands/s", name, threads, commandsPerSecond));
+    }
+
+    private static void run(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            new Thread(() -> {
+                try {
+                    worker.run(thread);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+    }
+
+    @FunctionalInterface
+    private interface Command {
+        String apply(int session, PlayerEvent event);
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int thread);
+    }
+}
@@ -0,0 +1,98 @@
+package pattern.state.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlayerEngineTests {
+
+	@Test
+	void closedSessionsAreReopened() {
+		PlayerEngine engine = new PlayerEngine(2);
+		int first = engine.open();
+		int second = engine.open();
+		assertThrows(IllegalStateException.class, engine::open);
+
+		engine.next(first);
+		engine.close(first);
+		int reopened = engine.open();
+
+		assertEquals(first, reopened);
+		assertEquals(PlayerState.READY, engine.getState(reopened));
+		assertEquals(0, engine.getCurrentTrack(reopened));
+		assertEquals("Playing Track 1", engine.play(reopened));
+		assertEquals(2, engine.getOpenedSessions());
+		engine.close(second);
+		assertThrows(IllegalStateException.class, () -> engine.close(second));
+		assertThrows(IllegalStateException.class, () -> engine.play(second));
+	}
+
+	@Test
+	void threadsOpenAndCloseManyMoreSessionsThanTheCapacity() throws Exception {
+		int threads = 8;
+		int rounds = 20_000;
+		PlayerEngine engine = new PlayerEngine(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> results = new ArrayList<>();
+			for (int thread = 0; thread < threads; thread++) {
+				results.add(executor.submit(() -> {
+					for (int round = 0; round < rounds; round++) {
+						// at most one session per thread, so a free slot always exists
+						int session = engine.open();
+						assertEquals("Playing Track 1", engine.play(session));
+						assertEquals("Playing Track 2", engine.next(session));
+						assertEquals(PlayerState.PLAYING, engine.getState(session));
+						engine.close(session);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> result : results) {
+				result.get(1, TimeUnit.MINUTES);
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(threads, engine.getOpenedSessions());
+		for (int session = 0; session < threads; session++) {
+			int closed = session;
+			assertThrows(IllegalStateException.class, () -> engine.play(closed), "session " + session + " left open");
+		}
+		// every slot is free again
+		for (int session = 0; session < threads; session++) {
+			engine.open();
+		}
+	}
+
+	@Test
+	void failedJournalAppendHandsTheSlotBack(@TempDir Path directory) throws IOException {
+		Path journalDirectory = directory.resolve("journal");
+		try (PlayerJournal journal = PlayerJournal.open(journalDirectory, 1 << 12, Duration.ofHours(1))) {
+			PlayerEngine engine = new PlayerEngine(1, journal);
+			// the first append maps a segment, which fails without the directory
+			Files.delete(journalDirectory);
+			assertThrows(UncheckedIOException.class, engine::open);
+
+			Files.createDirectories(journalDirectory);
+			int session = engine.open();
+			assertEquals(0, session);
+			assertTrue(engine.play(session).startsWith("Playing"));
+		}
+	}
+}
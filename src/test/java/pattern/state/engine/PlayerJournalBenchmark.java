@@ -0,0 +1,111 @@
+package pattern.state.engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Hand-rolled, the build has no JMH: command throughput with and without the journal, then recovery time
+// from the log alone and from a snapshot plus tail.
+// Run with: java -cp target/classes:target/test-classes pattern.state.engine.PlayerJournalBenchmark [threads] [sessions] [commands]
+public class PlayerJournalBenchmark {
+
+    private static final int SEGMENT_BYTES = 64 << 20;
+
+    private static final Duration COMMIT_INTERVAL = Duration.ofMillis(5);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : 20_000_000;
+        System.out.println(String.format("threads=%d, sessions=%d, commands=%d, cores=%d", threads, sessions, commands,
+                Runtime.getRuntime().availableProcessors()));
+
+        // warm-up
+        drive(new PlayerEngine(sessions), sessions, threads, commands / 10);
+        double memory = drive(new PlayerEngine(sessions), sessions, threads, commands);
+        System.out.println(String.format("in memory  %12.0f commands/s", memory));
+
+        Path directory = Files.createTempDirectory("player-journal");
+        try {
+            PlayerEngine engine;
+            PlayerJournal journal = PlayerJournal.open(directory, SEGMENT_BYTES, COMMIT_INTERVAL);
+            engine = new PlayerEngine(sessions, journal);
+            double journaled = drive(engine, sessions, threads, commands);
+            journal.close();
+            System.out.println(String.format("journaled  %12.0f commands/s   %.2fx slower   %d MB of log", journaled,
+                    memory / journaled, size(directory) >> 20));
+
+            recover("log only", directory, engine);
+
+            // a snapshot, then another tenth of the load as the tail to replay
+            journal = PlayerJournal.open(directory, SEGMENT_BYTES, COMMIT_INTERVAL);
+            engine = new PlayerEngine(sessions, journal);
+            journal.recover(engine);
+            journal.snapshot(engine);
+            drive(engine, sessions, threads, commands / 10);
+            journal.close();
+            System.out.println(String.format("snapshot + tail, %d MB on disk", size(directory) >> 20));
+            recover("snapshot", directory, engine);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void recover(String name, Path directory, PlayerEngine expected) throws IOException {
+        long start = System.nanoTime();
+        PlayerEngine recovered = new PlayerEngine(expected.getCapacity());
+        try (PlayerJournal journal = PlayerJournal.open(directory, SEGMENT_BYTES, COMMIT_INTERVAL)) {
+            journal.recover(recovered);
+        }
+        double millis = (System.nanoTime() - start) / 1e6;
+        int mismatches = 0;
+        for (int session = 0; session < expected.getOpenedSessions(); session++) {
+            if (recovered.getWord(session) != expected.getWord(session)) {
+                mismatches++;
+            }
+        }
+        System.out.println(String.format("recovery from %-9s %8.1f ms   %d sessions differ", name, millis, mismatches));
+        if (mismatches > 0) {
+            throw new IllegalStateException(mismatches + " sessions were not recovered");
+        }
+    }
+
+    private static double drive(PlayerEngine engine, int sessions, int threads, int commands)
+            throws InterruptedException {
+        while (engine.getOpenedSessions() < sessions) {
+            engine.open();
+        }
+        PlayerEvent[] events = PlayerEvent.values();
+        LongAdder done = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            new Thread(() -> {
+                Random random = new Random(thread);
+                int count = commands / threads;
+                for (int i = 0; i < count; i++) {
+                    engine.fire(random.nextInt(sessions), events[random.nextInt(events.length)]);
+                }
+                done.add(count);
+                finished.countDown();
+            }).start();
+        }
+        finished.await();
+        return done.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static long size(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.mapToLong(path -> path.toFile().length()).sum();
+        }
+    }
+}
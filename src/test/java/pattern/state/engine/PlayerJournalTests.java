@@ -0,0 +1,158 @@
+package pattern.state.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PlayerJournalTests {
+
+	// 64 records a segment, so a few hundred commands span several files
+	private static final int SEGMENT_BYTES = 64 * PlayerJournal.RECORD_BYTES;
+
+	private static final int SESSIONS = 8;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void recoversEveryCommandFromTheLog() throws IOException {
+		PlayerEngine engine;
+		try (PlayerJournal journal = open()) {
+			engine = new PlayerEngine(SESSIONS, journal);
+			drive(engine, 500, 1);
+		}
+
+		assertRecovered(engine);
+	}
+
+	@Test
+	void snapshotDropsTheSegmentsItCovers() throws IOException {
+		PlayerEngine engine;
+		try (PlayerJournal journal = open()) {
+			engine = new PlayerEngine(SESSIONS, journal);
+			drive(engine, 500, 1);
+			int before = segments().size();
+			journal.snapshot(engine);
+			assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+			assertTrue(segments().size() < before, "segments " + segments() + " were kept");
+			drive(engine, 200, 2);
+		}
+
+		assertRecovered(engine);
+	}
+
+	@Test
+	void corruptLastRecordIsSkipped() throws IOException {
+		long offset = writeTwoMoves();
+		try (FileChannel channel = FileChannel.open(segmentAt(offset), StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 0x55 }), offset % SEGMENT_BYTES + 3);
+		}
+
+		assertEquals(1, recover().getCurrentTrack(0));
+	}
+
+	@Test
+	void tornLastRecordIsSkipped() throws IOException {
+		long offset = writeTwoMoves();
+		try (FileChannel channel = FileChannel.open(segmentAt(offset), StandardOpenOption.WRITE)) {
+			channel.truncate(offset % SEGMENT_BYTES + 8);
+		}
+
+		assertEquals(1, recover().getCurrentTrack(0));
+	}
+
+	@Test
+	void failedWriterDoesNotStallCommits() throws IOException {
+		try (PlayerJournal journal = open()) {
+			PlayerEngine engine = new PlayerEngine(SESSIONS, journal);
+			// the first record cannot map its segment and leaves a hole at offset 0
+			Files.delete(directory);
+			assertThrows(UncheckedIOException.class, engine::open);
+			Files.createDirectories(directory);
+
+			int session = engine.open();
+			engine.play(session);
+			engine.next(session);
+			journal.sync();
+
+			assertEquals(4 * PlayerJournal.RECORD_BYTES, journal.getCommittedOffset());
+			assertEquals(1, recover().getCurrentTrack(session));
+		}
+	}
+
+	// opens session 0 and moves it to track 1, then track 2, returns the offset of the last record
+	private long writeTwoMoves() throws IOException {
+		try (PlayerJournal journal = open()) {
+			PlayerEngine engine = new PlayerEngine(SESSIONS, journal);
+			int session = engine.open();
+			engine.play(session);
+			engine.next(session);
+			engine.next(session);
+			journal.sync();
+			return journal.getCommittedOffset() - PlayerJournal.RECORD_BYTES;
+		}
+	}
+
+	private PlayerJournal open() throws IOException {
+		return PlayerJournal.open(directory, SEGMENT_BYTES, Duration.ofHours(1));
+	}
+
+	private PlayerEngine recover() throws IOException {
+		PlayerEngine recovered = new PlayerEngine(SESSIONS);
+		try (PlayerJournal journal = open()) {
+			journal.recover(recovered);
+		}
+		return recovered;
+	}
+
+	private void assertRecovered(PlayerEngine expected) throws IOException {
+		PlayerEngine recovered = recover();
+		assertEquals(expected.getOpenedSessions(), recovered.getOpenedSessions());
+		for (int session = 0; session < expected.getOpenedSessions(); session++) {
+			assertEquals(expected.getWord(session), recovered.getWord(session), "session " + session);
+		}
+	}
+
+	private static void drive(PlayerEngine engine, int commands, long seed) {
+		while (engine.getOpenedSessions() < SESSIONS) {
+			engine.open();
+		}
+		Random random = new Random(seed);
+		PlayerEvent[] events = PlayerEvent.values();
+		for (int i = 0; i < commands; i++) {
+			int session = random.nextInt(SESSIONS);
+			// a few sessions are closed and reopened on the way
+			if (random.nextInt(50) == 0) {
+				engine.close(session);
+				engine.open();
+			} else {
+				engine.fire(session, events[random.nextInt(events.length)]);
+			}
+		}
+	}
+
+	private Path segmentAt(long offset) throws IOException {
+		return segments().get((int) (offset / SEGMENT_BYTES));
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(path -> path.getFileName().toString().startsWith("segment-")).sorted().toList();
+		}
+	}
+}
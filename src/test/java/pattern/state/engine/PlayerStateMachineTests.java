@@ -0,0 +1,78 @@
+package pattern.state.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import pattern.state.Player;
+import pattern.state.playlist.Playlist;
+
+class PlayerStateMachineTests {
+
+	private static final PlayerEvent[] EVENTS = PlayerEvent.values();
+
+	// every event sequence of this length, long enough to wrap a three track playlist both ways from every state
+	private static final int DEPTH = 7;
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3 })
+	void tableMatchesStateClassesForEverySequence(int size) {
+		Playlist playlist = Playlist.generated(size);
+		int sequences = (int) Math.pow(EVENTS.length, DEPTH);
+		for (int sequence = 0; sequence < sequences; sequence++) {
+			Replay replay = new Replay(playlist);
+			int events = sequence;
+			for (int step = 0; step < DEPTH; step++) {
+				replay.fire(EVENTS[events % EVENTS.length], sequence);
+				events /= EVENTS.length;
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 5, 12, 100 })
+	void tableMatchesStateClassesOnLongWalks(int size) {
+		Playlist playlist = Playlist.generated(size).shuffled(size);
+		Random random = new Random(size);
+		for (int walk = 0; walk < 20; walk++) {
+			Replay replay = new Replay(playlist);
+			for (int step = 0; step < 5_000; step++) {
+				replay.fire(EVENTS[random.nextInt(EVENTS.length)], walk);
+			}
+		}
+	}
+
+	// the classic player, a plain session and an engine session driven by the same events
+	private static final class Replay {
+		private final Player player;
+		private final PlayerSession session;
+		private final PlayerEngine engine;
+		private final int id;
+
+		Replay(Playlist playlist) {
+			player = new Player(playlist);
+			session = new PlayerSession(playlist);
+			engine = new PlayerEngine(1, null, playlist);
+			id = engine.open();
+		}
+
+		void fire(PlayerEvent event, int sequence) {
+			String expected = switch (event) {
+				case PLAY -> player.play();
+				case LOCK -> player.lock();
+				case NEXT -> player.next();
+				case PREVIOUS -> player.previous();
+			};
+			String message = "sequence " + sequence + ", " + event;
+			assertEquals(expected, PlayerStateMachine.MACHINE.fire(session, event), message);
+			assertEquals(expected, engine.fire(id, event), message);
+			assertEquals(player.getState().getType(), session.getState(), message);
+			assertEquals(player.getState().getType(), engine.getState(id), message);
+			assertEquals(player.isPlaying(), session.isPlaying(), message);
+			assertEquals(session.getCurrentTrack(), engine.getCurrentTrack(id), message);
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package pattern.state.engine;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+import pattern.state.Player;
+
+// Hand-rolled, the build has no JMH: warms up, then fires the same event sequence at both designs.
+// Run with: java -cp target/classes:target/test-classes pattern.state.engine.StateMachineBenchmark [transitions]
+public class StateMachineBenchmark {
+
+    // a fixed pseudo-random sequence visits every state, a repeating pattern would let the JIT see one state per call site
+    private static final PlayerEvent[] EVENTS = new PlayerEvent[1024];
+
+    static {
+        Random random = new Random(42);
+        PlayerEvent[] values = PlayerEvent.values();
+        for (int i = 0; i < EVENTS.length; i++) {
+            EVENTS[i] = values[random.nextInt(values.length)];
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // keeps the results alive so the loops are not eliminated
+    private static int sink;
+
+    public static void main(String[] args) {
+        int transitions = args.length > 0 ? Integer.parseInt(args[0]) : 200_000_000;
+        for (int i = 0; i < 5; i++) {
+            classic(transitions / 10);
+            table(transitions / 10);
+        }
+        report("classic", transitions, StateMachineBenchmark::classic);
+        report("table", transitions, StateMachineBenchmark::table);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void classic(int transitions) {
+        Player player = new Player();
+        int hash = 0;
+        for (int i = 0; i < transitions; i++) {
+            PlayerEvent event = EVENTS[i & (EVENTS.length - 1)];
+            String message = switch (event) {
+                case PLAY -> player.getState().onPlay();
+                case LOCK -> player.getState().onLock();
+                case NEXT -> player.getState().onNext();
+                case PREVIOUS -> player.getState().onPrevious();
+            };
+            hash += message.length();
+        }
+        sink += hash;
+    }
+
+    private static void table(int transitions) {
+        PlayerSession player = new PlayerSession();
+        int hash = 0;
+        for (int i = 0; i < transitions; i++) {
+            hash += PlayerStateMachine.MACHINE.fire(player, EVENTS[i & (EVENTS.length - 1)]).length();
+        }
+        sink += hash;
+    }
+
+    private static void report(String name, int transitions, IntConsumer run) {
+        long threadId = Thread.currentThread().getId();
+        long bytes = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        run.accept(transitions);
+        long nanos = System.nanoTime() - start;
+        bytes = THREADS.getThreadAllocatedBytes(threadId) - bytes;
+        System.out.println(String.format("%-8s %12.0f transitions/s %8.2f ns/transition %8.2f bytes/transition",
+                name, transitions / (nanos / 1e9), (double) nanos / transitions, (double) bytes / transitions));
+    }
+}
@@ -0,0 +1,181 @@
+package pattern.state.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static pattern.state.engine.PlayerEvent.LOCK;
+import static pattern.state.engine.PlayerEvent.NEXT;
+import static pattern.state.engine.PlayerEvent.PLAY;
+import static pattern.state.engine.PlayerState.LOCKED;
+import static pattern.state.engine.PlayerState.PLAYING;
+import static pattern.state.engine.PlayerState.READY;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+import pattern.state.Player;
+import pattern.state.engine.PlayerEngine;
+
+class TransitionMetricsTests {
+
+	@Test
+	void everyRecordCountsTheEdgeButOnlyTimedOnesFillTheHistogram() {
+		TransitionMetrics metrics = new TransitionMetrics();
+		for (int i = 0; i < 30; i++) {
+			metrics.record(READY, PLAY, PLAYING);
+		}
+		for (int i = 0; i < 2; i++) {
+			metrics.record(READY, PLAY, PLAYING, 100);
+		}
+		metrics.record(PLAYING, LOCK, LOCKED, 100);
+
+		assertEquals(32, metrics.count(READY, PLAY, PLAYING));
+		assertEquals(1, metrics.count(PLAYING, LOCK, LOCKED));
+		assertEquals(0, metrics.count(LOCKED, PLAY, READY));
+		// the 30 untimed transitions do not pull the quantiles down to zero
+		assertEquals(128, metrics.latencyNanos(PLAY, 0.01));
+		assertEquals(0, metrics.latencyNanos(NEXT, 0.5));
+	}
+
+	@Test
+	void latenciesFallInPowerOfTwoBuckets() {
+		TransitionMetrics metrics = new TransitionMetrics();
+		for (int i = 0; i < 99; i++) {
+			// [64, 128)
+			metrics.record(READY, PLAY, PLAYING, 64 + i % 64);
+		}
+		metrics.record(READY, PLAY, PLAYING, 5_000);
+
+		assertEquals(128, metrics.latencyNanos(PLAY, 0.5));
+		assertEquals(128, metrics.latencyNanos(PLAY, 0.99));
+		assertEquals(8192, metrics.latencyNanos(PLAY, 0.995));
+		assertEquals(8192, metrics.latencyNanos(PLAY, 1));
+	}
+
+	@Test
+	void bucketEdges() {
+		assertEquals(1, latency(0));
+		assertEquals(1, latency(-5));
+		assertEquals(2, latency(1));
+		assertEquals(4, latency(2));
+		assertEquals(4, latency(3));
+		assertEquals(8, latency(4));
+		assertEquals(1L << 62, latency((1L << 61) + 1));
+		assertEquals(Long.MAX_VALUE, latency(Long.MAX_VALUE));
+	}
+
+	@Test
+	void aboutOneTransitionInSixteenIsTimed() {
+		int draws = 160_000;
+		int sampled = 0;
+		for (int i = 0; i < draws; i++) {
+			if (TransitionMetrics.sampleLatency()) {
+				sampled++;
+			}
+		}
+		// 10 000 expected, the standard deviation is under 100
+		assertTrue(sampled > 9_500 && sampled < 10_500, sampled + " of " + draws + " sampled");
+	}
+
+	@Test
+	void mxBeanExposesCountsAndLatencies() throws Exception {
+		TransitionMetrics.registerMBean();
+		TransitionMetricsMXBean bean = JMX.newMXBeanProxy(ManagementFactory.getPlatformMBeanServer(),
+				new ObjectName("pattern.state:type=TransitionMetrics"), TransitionMetricsMXBean.class);
+		bean.reset();
+		TransitionMetrics.GLOBAL.record(READY, PLAY, PLAYING, 100);
+		TransitionMetrics.GLOBAL.record(READY, PLAY, PLAYING);
+		TransitionMetrics.GLOBAL.record(PLAYING, LOCK, LOCKED);
+
+		assertEquals(Map.of("READY -PLAY-> PLAYING", 2L, "PLAYING -LOCK-> LOCKED", 1L), bean.getTransitionCounts());
+		assertEquals(0.128, bean.getLatencyP50Micros().get("PLAY"));
+		assertEquals(0.128, bean.getLatencyP99Micros().get("PLAY"));
+		assertEquals(0.0, bean.getLatencyP99Micros().get("LOCK"));
+
+		bean.reset();
+		assertEquals(Map.of(), bean.getTransitionCounts());
+	}
+
+	@Test
+	void publishSendsTakenEdgesAndQuantiles() {
+		TransitionMetrics metrics = new TransitionMetrics();
+		metrics.record(READY, PLAY, PLAYING, 1_000);
+		List<String> published = new ArrayList<>();
+		metrics.publish(new MetricsSink() {
+			@Override
+			public void counter(String name, Map<String, String> tags, long value) {
+				published.add(name + " " + tags.get("from") + " " + tags.get("event") + " " + tags.get("to") + " " + value);
+			}
+
+			@Override
+			public void gauge(String name, Map<String, String> tags, double value) {
+				if (tags.get("event").equals("PLAY")) {
+					published.add(name + " " + tags.get("quantile") + " " + value);
+				}
+			}
+		});
+
+		assertEquals(List.of("player.transitions READY PLAY PLAYING 1", "player.transition.latency 0.5 1.024",
+				"player.transition.latency 0.99 1.024"), published);
+	}
+
+	@Test
+	void disabledMetricsRecordNothing() {
+		assumeFalse(TransitionMetrics.ENABLED, "run without -Dplayer.metrics=true");
+		TransitionMetrics.GLOBAL.reset();
+		Player player = new Player();
+		PlayerEngine engine = new PlayerEngine(1);
+		int session = engine.open();
+		for (int i = 0; i < 1_000; i++) {
+			player.play();
+			player.next();
+			player.lock();
+			engine.play(session);
+			engine.next(session);
+			engine.lock(session);
+		}
+
+		assertEquals(Map.of(), TransitionMetrics.GLOBAL.getTransitionCounts());
+		assertEquals(0, TransitionMetrics.GLOBAL.latencyNanos(PLAY, 1));
+	}
+
+	// mvn test -DargLine=-Dplayer.metrics=true
+	@Test
+	void enabledMetricsCountEveryTransitionAndTimeASample() {
+		assumeTrue(TransitionMetrics.ENABLED, "run with -Dplayer.metrics=true");
+		TransitionMetrics.GLOBAL.reset();
+		Player player = new Player();
+		PlayerEngine engine = new PlayerEngine(1);
+		int session = engine.open();
+		int rounds = 16_000;
+		for (int i = 0; i < rounds; i++) {
+			player.play();
+			player.play();
+			engine.play(session);
+			engine.play(session);
+		}
+
+		assertEquals(2L * rounds, TransitionMetrics.GLOBAL.count(READY, PLAY, PLAYING));
+		assertEquals(2L * rounds, TransitionMetrics.GLOBAL.count(PLAYING, PLAY, READY));
+		long timed = 0;
+		for (long bucket : TransitionMetrics.GLOBAL.latencyBuckets(PLAY)) {
+			timed += bucket;
+		}
+		// 4 * 16 000 / 16 = 4 000 expected, the standard deviation is about 60
+		assertTrue(timed > 3_600 && timed < 4_400, timed + " timed");
+	}
+
+	private static long latency(long nanos) {
+		TransitionMetrics metrics = new TransitionMetrics();
+		metrics.record(READY, PLAY, PLAYING, nanos);
+		return metrics.latencyNanos(PLAY, 0.5);
+	}
+}
@@ -0,0 +1,102 @@
+package pattern.state.playlist;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Supplier;
+
+import pattern.state.Player;
+
+// Hand-rolled, the build has no JMH: heap retained by a player and the cost of next() per playlist length.
+// Run with: java -cp target/classes:target/test-classes pattern.state.playlist.PlaylistBenchmark
+public class PlaylistBenchmark {
+
+    private static final int STEPS = 10_000_000;
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private static int sink;
+
+    public static void main(String[] args) {
+        checkShuffleIsPermutation();
+        int[] sizes = {12, 1_000_000, 100_000_000, Integer.MAX_VALUE};
+        for (int size : sizes) {
+            if (size <= 1_000_000) {
+                measure("eager list", size, () -> eager(size));
+                measure("track ids", size, () -> tracks(size));
+            }
+            measure("generated", size, () -> Playlist.generated(size));
+            measure("shuffled", size, () -> Playlist.generated(size).shuffled(42));
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    // the previous Player: one String per track, built up front
+    private static Playlist eager(int size) {
+        List<String> titles = new ArrayList<>();
+        for (int i = 1; i <= size; i++) {
+            titles.add("Track " + i);
+        }
+        return new Playlist() {
+            @Override
+            public int size() {
+                return titles.size();
+            }
+
+            @Override
+            public String title(int position) {
+                return titles.get(position);
+            }
+        };
+    }
+
+    private static Playlist tracks(int size) {
+        TrackPlaylist tracks = new TrackPlaylist(id -> "Track " + id);
+        for (int i = 1; i <= size; i++) {
+            tracks.add(i);
+        }
+        return tracks;
+    }
+
+    private static void measure(String name, int size, Supplier<Playlist> playlist) {
+        long before = usedHeap();
+        Player player = new Player(playlist.get());
+        long retained = usedHeap() - before;
+        player.getState().onPlay();
+        for (int i = 0; i < STEPS; i++) {
+            sink += player.getState().onNext().length();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < STEPS; i++) {
+            sink += player.getState().onNext().length();
+        }
+        double nanos = (double) (System.nanoTime() - start) / STEPS;
+        System.out.println(String.format("%-10s %,14d tracks %12.1f KB retained %8.1f ns/next", name, size,
+                Math.max(retained, 0) / 1024.0, nanos));
+        sink += player.hashCode();
+    }
+
+    private static void checkShuffleIsPermutation() {
+        for (int size = 1; size <= 5_000; size += 7) {
+            ShuffledPlaylist shuffled = new ShuffledPlaylist(Playlist.generated(size), size);
+            BitSet seen = new BitSet(size);
+            for (int position = 0; position < size; position++) {
+                seen.set(shuffled.sourcePosition(position));
+            }
+            if (seen.cardinality() != size) {
+                throw new IllegalStateException("Shuffle of " + size + " tracks is not a permutation");
+            }
+        }
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return MEMORY.getHeapMemoryUsage().getUsed();
+    }
+}
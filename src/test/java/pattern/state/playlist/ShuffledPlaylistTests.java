@@ -0,0 +1,69 @@
+package pattern.state.playlist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ShuffledPlaylistTests {
+
+	// powers of four, one off on either side, and sizes where the walk has to cycle back in often
+	@ParameterizedTest
+	@ValueSource(ints = { 1, 2, 3, 4, 5, 15, 16, 17, 63, 64, 65, 1000, 4095, 4096, 4097, 100_000 })
+	void everySourcePositionIsPlayedOnce(int size) {
+		for (long seed : new long[] { 0, 1, 42, -1 }) {
+			ShuffledPlaylist shuffled = new ShuffledPlaylist(Playlist.generated(size), seed);
+			BitSet seen = new BitSet(size);
+			for (int position = 0; position < size; position++) {
+				int source = shuffled.sourcePosition(position);
+				assertTrue(source >= 0 && source < size, "position " + source + " out of " + size);
+				assertFalse(seen.get(source), "position " + source + " played twice");
+				seen.set(source);
+			}
+			assertEquals(size, seen.cardinality());
+		}
+	}
+
+	@Test
+	void sameSeedSameOrder() {
+		assertArrayEquals(order(1000, 7), order(1000, 7));
+	}
+
+	@Test
+	void seedsChangeTheOrder() {
+		assertFalse(Arrays.equals(order(1000, 7), order(1000, 8)));
+	}
+
+	@Test
+	void titlesComeFromTheSource() {
+		Playlist source = Playlist.generated(10);
+		ShuffledPlaylist shuffled = new ShuffledPlaylist(source, 3);
+		for (int position = 0; position < 10; position++) {
+			assertEquals(source.title(shuffled.sourcePosition(position)), shuffled.title(position));
+		}
+	}
+
+	@Test
+	void positionsOutsideThePlaylistAreRejected() {
+		ShuffledPlaylist shuffled = new ShuffledPlaylist(Playlist.generated(10), 3);
+		assertThrows(IndexOutOfBoundsException.class, () -> shuffled.sourcePosition(10));
+		assertThrows(IndexOutOfBoundsException.class, () -> shuffled.sourcePosition(-1));
+	}
+
+	private static int[] order(int size, long seed) {
+		ShuffledPlaylist shuffled = new ShuffledPlaylist(Playlist.generated(size), seed);
+		int[] order = new int[size];
+		for (int position = 0; position < size; position++) {
+			order[position] = shuffled.sourcePosition(position);
+		}
+		return order;
+	}
+}
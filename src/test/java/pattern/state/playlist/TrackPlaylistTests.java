@@ -0,0 +1,48 @@
+package pattern.state.playlist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import pattern.state.Player;
+import pattern.state.engine.PlayerEngine;
+import pattern.state.engine.PlayerSession;
+
+class TrackPlaylistTests {
+
+	@Test
+	void playersRefuseAnEmptyPlaylist() {
+		TrackPlaylist empty = new TrackPlaylist(id -> "Song " + id);
+
+		assertThrows(IllegalArgumentException.class, () -> new Player(empty));
+		assertThrows(IllegalArgumentException.class, () -> new PlayerSession(empty));
+		assertThrows(IllegalArgumentException.class, () -> new PlayerEngine(1, null, empty));
+	}
+
+	@Test
+	void playsOnceTracksAreAdded() {
+		TrackPlaylist tracks = new TrackPlaylist(id -> "Song " + id).add(7).add(3);
+		Player player = new Player(tracks);
+
+		assertEquals("Playing Song 7", player.play());
+		assertEquals("Playing Song 3", player.next());
+		assertEquals("Playing Song 7", player.next());
+	}
+
+	@Test
+	void growsAcrossPages() {
+		TrackPlaylist tracks = new TrackPlaylist(id -> "Song " + id);
+		int size = 3 * 4096 + 5;
+		for (int i = 0; i < size; i++) {
+			tracks.add(i * 2);
+		}
+
+		assertEquals(size, tracks.size());
+		for (int i = 0; i < size; i++) {
+			assertEquals(i * 2, tracks.trackId(i));
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> tracks.trackId(size));
+		assertThrows(IndexOutOfBoundsException.class, () -> tracks.trackId(-1));
+	}
+}
@@ -0,0 +1,64 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChannelSinkTests {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void flushWritesWhatWasAppended() throws IOException {
+		Path file = directory.resolve("out.txt");
+		try (PrinterSink sink = PrinterSink.toFile(file)) {
+			sink.append("\u00C9tage ").append('1');
+			sink.flush();
+			assertEquals("\u00C9tage 1", Files.readString(file));
+			sink.append(" et 2");
+			sink.sync();
+			assertEquals("\u00C9tage 1 et 2", Files.readString(file));
+		}
+	}
+
+	@Test
+	void pairSplitAcrossAppendsIsKept() throws IOException {
+		Path file = directory.resolve("out.txt");
+		try (PrinterSink sink = PrinterSink.toFile(file)) {
+			sink.append("a\uD83C");
+			sink.flush();
+			sink.append("\uDFE0b");
+		}
+		assertEquals("a\uD83C\uDFE0b", Files.readString(file));
+	}
+
+	@Test
+	void trailingLoneSurrogateIsNotDropped() throws IOException {
+		Path file = directory.resolve("out.txt");
+		try (PrinterSink sink = PrinterSink.toFile(file)) {
+			sink.append("end\uD83C");
+		}
+		assertEquals("end?", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void longerThanTheBuffer() throws IOException {
+		Path file = directory.resolve("out.txt");
+		String line = "Appartement \u00E9\uD83C\uDFE0\n";
+		StringBuilder expected = new StringBuilder();
+		try (PrinterSink sink = PrinterSink.toFile(file)) {
+			for (int i = 0; i < 20_000; i++) {
+				sink.append(line);
+				expected.append(line);
+			}
+		}
+		assertEquals(expected.toString(), Files.readString(file));
+	}
+}
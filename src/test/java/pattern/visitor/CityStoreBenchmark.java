@@ -0,0 +1,113 @@
+package pattern.visitor;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Hand-rolled, the build has no JMH: retained heap and visiting time of the object graph against the store.
+// Names repeat like in real models, "Floor 3" or "Apartment 12", but each object holds its own copy.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.CityStoreBenchmark [buildings] [floors] [apartments per floor]
+public class CityStoreBenchmark {
+
+	private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int buildings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+		int floors = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+		int apartments = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+		System.out.println(String.format("%,d apartments", (long) buildings * floors * apartments));
+
+		long before = usedHeap();
+		City city = objects(buildings, floors, apartments);
+		long objectBytes = usedHeap() - before;
+		CountingVisitor.Counts expected = time("objects, accept", () -> {
+			CountingVisitor visitor = new CountingVisitor();
+			city.accept(visitor);
+			return visitor.result();
+		});
+
+		before = usedHeap();
+		CityStore store = store(buildings, floors, apartments);
+		long storeBytes = usedHeap() - before;
+		CountingVisitor.Counts counts = time("store, visitor adapter", () -> {
+			CountingVisitor visitor = new CountingVisitor();
+			store.accept(visitor);
+			return visitor.result();
+		});
+		if (!counts.equals(expected) || !counts.equals(count(CityStore.of(city).toCity()))) {
+			throw new IllegalStateException(counts + " differs from " + expected);
+		}
+
+		System.out.println(String.format("objects %8.1f MB retained%nstore   %8.1f MB retained, %d distinct names, %.1fx smaller",
+				objectBytes / 1e6, storeBytes / 1e6, store.distinctNames(), (double) objectBytes / storeBytes));
+		// keeps both models reachable until after the measurements
+		Reference.reachabilityFence(city);
+		Reference.reachabilityFence(store);
+	}
+
+	private static City objects(int buildings, int floors, int apartments) {
+		City city = new City("City");
+		List<Building> cityBuildings = new ArrayList<>();
+		for (int b = 0; b < buildings; b++) {
+			Building building = new Building("Building " + b);
+			List<Floor> buildingFloors = new ArrayList<>();
+			for (int f = 0; f < floors; f++) {
+				Floor floor = new Floor("Floor " + f);
+				List<Apartment> floorApartments = new ArrayList<>();
+				for (int a = 0; a < apartments; a++) {
+					floorApartments.add(new Apartment("Apartment " + a));
+				}
+				floor.setApartments(floorApartments);
+				buildingFloors.add(floor);
+			}
+			building.setFloors(buildingFloors);
+			cityBuildings.add(building);
+		}
+		city.setBuildings(cityBuildings);
+		return city;
+	}
+
+	private static CityStore store(int buildings, int floors, int apartments) {
+		CityStore.Builder builder = CityStore.builder("City");
+		for (int b = 0; b < buildings; b++) {
+			builder.building("Building " + b);
+			for (int f = 0; f < floors; f++) {
+				builder.floor("Floor " + f);
+				for (int a = 0; a < apartments; a++) {
+					builder.apartment("Apartment " + a);
+				}
+			}
+		}
+		return builder.build();
+	}
+
+	private static CountingVisitor.Counts count(City city) {
+		CountingVisitor visitor = new CountingVisitor();
+		city.accept(visitor);
+		return visitor.result();
+	}
+
+	private static CountingVisitor.Counts time(String name, Supplier<CountingVisitor.Counts> walk) {
+		CountingVisitor.Counts counts = null;
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			counts = walk.get();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-24s %8.1f ms", name, best / 1e6));
+		return counts;
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return MEMORY.getHeapMemoryUsage().getUsed();
+	}
+}
@@ -0,0 +1,120 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class CityStoreTests {
+
+	@Test
+	void roundTripKeepsTheGraph() {
+		City city = VisitorBenchmark.city(4, 3, 5);
+		City rebuilt = CityStore.of(city).toCity();
+		assertEquals(NamesVisitor.sequential(city), NamesVisitor.sequential(rebuilt));
+		assertEquals(city.getBuildings().size(), rebuilt.getBuildings().size());
+		for (int b = 0; b < city.getBuildings().size(); b++) {
+			Building building = city.getBuildings().get(b);
+			Building rebuiltBuilding = rebuilt.getBuildings().get(b);
+			assertEquals(building.getName(), rebuiltBuilding.getName());
+			assertEquals(building.getFloors().size(), rebuiltBuilding.getFloors().size());
+			for (int f = 0; f < building.getFloors().size(); f++) {
+				assertEquals(building.getFloors().get(f).getApartments().size(),
+						rebuiltBuilding.getFloors().get(f).getApartments().size());
+			}
+		}
+	}
+
+	@Test
+	void acceptVisitsInCityOrder() {
+		City city = VisitorBenchmark.city(3, 4, 2);
+		NamesVisitor visitor = new NamesVisitor();
+		CityStore.of(city).accept(visitor);
+		assertEquals(NamesVisitor.sequential(city), visitor.result());
+	}
+
+	@Test
+	void emptyParentsKeepTheirPlace() {
+		CityStore store = CityStore.builder("City")
+				.building("Empty")
+				.building("Tower")
+				.floor("Ground")
+				.floor("First")
+				.apartment("A")
+				.apartment("B")
+				.floor("Roof")
+				.building("Last")
+				.build();
+		assertEquals(List.of("City", "Empty", "Tower", "Ground", "First", "A", "B", "Roof", "Last"),
+				NamesVisitor.sequential(store.toCity()));
+		assertEquals(3, store.buildingCount());
+		assertEquals(3, store.floorCount());
+		assertEquals(2, store.apartmentCount());
+		assertEquals("B", store.apartmentName(1));
+	}
+
+	@Test
+	void countsAndSharedNames() {
+		CityStore store = CityStore.of(VisitorBenchmark.city(4, 3, 5));
+		assertEquals(4, store.buildingCount());
+		assertEquals(12, store.floorCount());
+		assertEquals(60, store.apartmentCount());
+		// the city, four buildings, three floor names shared by every building, and the apartments
+		assertEquals(1 + 4 + 3 + 60, store.distinctNames());
+	}
+
+	@Test
+	void childrenNeedAParent() {
+		assertThrows(IllegalStateException.class, () -> CityStore.builder("City").floor("Ground"));
+		assertThrows(IllegalStateException.class, () -> CityStore.builder("City").building("Tower").apartment("A"));
+	}
+
+	@Test
+	void builderIsSingleUse() {
+		CityStore.Builder builder = CityStore.builder("City").building("Tower");
+		CityStore store = builder.build();
+		assertThrows(IllegalStateException.class, () -> builder.building("Annex"));
+		assertThrows(IllegalStateException.class, () -> builder.floor("Ground"));
+		assertThrows(IllegalStateException.class, () -> builder.apartment("A"));
+		assertThrows(IllegalStateException.class, builder::build);
+		assertEquals(List.of("City", "Tower"), NamesVisitor.sequential(store.toCity()));
+	}
+
+	@Test
+	void acceptReusesOneNodePerLevel() {
+		Set<Visited> nodes = Collections.newSetFromMap(new IdentityHashMap<>());
+		NamesVisitor names = new NamesVisitor();
+		CityStore.of(VisitorBenchmark.city(3, 2, 2)).accept(new Visitor() {
+			@Override
+			public void visitCity(City city) {
+				nodes.add(city);
+				names.visitCity(city);
+			}
+
+			@Override
+			public void visitBuilding(Building building) {
+				nodes.add(building);
+				names.visitBuilding(building);
+			}
+
+			@Override
+			public void visitFloor(Floor floor) {
+				nodes.add(floor);
+				names.visitFloor(floor);
+			}
+
+			@Override
+			public void visitApartment(Apartment apartment) {
+				nodes.add(apartment);
+				names.visitApartment(apartment);
+			}
+		});
+		assertEquals(4, nodes.size());
+		assertEquals(NamesVisitor.sequential(VisitorBenchmark.city(3, 2, 2)), names.result());
+	}
+}
@@ -0,0 +1,89 @@
+package pattern.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hand-rolled, the build has no JMH: N visitors as N depth-first walks against one fused walk. Half of them
+// count everything, the other half look for one apartment in one building and stop there.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.FusedVisitorBenchmark [visitors] [buildings]
+public class FusedVisitorBenchmark {
+
+	private static final int ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int visitorCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+		int buildings = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+		City city = VisitorBenchmark.city(buildings, 25, 40);
+		System.out.println(String.format("%d visitors, %,d apartments", visitorCount, buildings * 25L * 40));
+
+		long separate = measure("separate walks", visitorCount, visitors -> {
+			for (TraversalVisitor visitor : visitors) {
+				Traversal.depthFirst(city, visitor);
+			}
+		});
+		long fused = measure("fused walk", visitorCount, visitors -> new FusedVisitor(visitors).run(city));
+		if (separate != fused) {
+			throw new IllegalStateException("Visitors disagree: " + separate + " and " + fused);
+		}
+	}
+
+	// the sum of everything the visitors counted or found, to compare both runs
+	private static long measure(String name, int visitorCount, Consumer<List<TraversalVisitor>> run) {
+		long best = Long.MAX_VALUE;
+		long checksum = 0;
+		for (int round = 0; round < ROUNDS; round++) {
+			List<CountingVisitor> counters = new ArrayList<>();
+			List<Finder> finders = new ArrayList<>();
+			List<TraversalVisitor> visitors = new ArrayList<>();
+			for (int i = 0; i < visitorCount; i++) {
+				if (i % 2 == 0) {
+					CountingVisitor counter = new CountingVisitor();
+					counters.add(counter);
+					visitors.add(TraversalVisitor.of(counter));
+				} else {
+					Finder finder = new Finder("Building" + i * 100, "Apartment" + i * 100 + "-12-20");
+					finders.add(finder);
+					visitors.add(finder);
+				}
+			}
+			long start = System.nanoTime();
+			run.accept(visitors);
+			best = Math.min(best, System.nanoTime() - start);
+			checksum = 0;
+			for (CountingVisitor counter : counters) {
+				checksum += counter.result().nameLength();
+			}
+			for (Finder finder : finders) {
+				checksum += finder.seen;
+			}
+		}
+		System.out.println(String.format("%-16s %8.1f ms", name, best / 1e6));
+		return checksum;
+	}
+
+	private static final class Finder implements TraversalVisitor {
+
+		private final String building;
+
+		private final String apartment;
+
+		private long seen;
+
+		Finder(String building, String apartment) {
+			this.building = building;
+			this.apartment = apartment;
+		}
+
+		@Override
+		public VisitResult visitBuilding(Building visited) {
+			return visited.getName().equals(building) ? VisitResult.CONTINUE : VisitResult.SKIP_SUBTREE;
+		}
+
+		@Override
+		public VisitResult visitApartment(Apartment visited) {
+			seen++;
+			return visited.getName().equals(apartment) ? VisitResult.STOP : VisitResult.CONTINUE;
+		}
+	}
+}
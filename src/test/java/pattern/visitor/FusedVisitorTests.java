@@ -0,0 +1,152 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+class FusedVisitorTests {
+
+	@Test
+	void everyVisitorSeesTheWholeGraph() {
+		City city = VisitorBenchmark.city(3, 2, 2);
+		NamesVisitor first = new NamesVisitor();
+		NamesVisitor second = new NamesVisitor();
+		assertEquals(VisitResult.CONTINUE, FusedVisitor.of(first, second).run(city));
+		assertEquals(NamesVisitor.sequential(city), first.result());
+		assertEquals(NamesVisitor.sequential(city), second.result());
+	}
+
+	@Test
+	void skippedBuildingResumesAtTheNextBuilding() {
+		City city = VisitorBenchmark.city(3, 2, 1);
+		Recording skipping = new Recording(name -> name.equals("Building1") ? VisitResult.SKIP_SUBTREE
+				: VisitResult.CONTINUE);
+		Recording all = new Recording(name -> VisitResult.CONTINUE);
+		new FusedVisitor(List.of(skipping, all)).run(city);
+		assertEquals(NamesVisitor.sequential(city), all.names);
+		assertEquals(List.of("City",
+				"Building0", "Floor0", "Apartment0-0-0", "Floor1", "Apartment0-1-0",
+				"Building1",
+				"Building2", "Floor0", "Apartment2-0-0", "Floor1", "Apartment2-1-0"), skipping.names);
+	}
+
+	@Test
+	void skippedFloorResumesAtTheNextFloor() {
+		City city = VisitorBenchmark.city(2, 2, 2);
+		Recording skipping = new Recording(name -> name.equals("Floor0") ? VisitResult.SKIP_SUBTREE
+				: VisitResult.CONTINUE);
+		new FusedVisitor(List.of(skipping, new Recording(name -> VisitResult.CONTINUE))).run(city);
+		assertEquals(List.of("City",
+				"Building0", "Floor0", "Floor1", "Apartment0-1-0", "Apartment0-1-1",
+				"Building1", "Floor0", "Floor1", "Apartment1-1-0", "Apartment1-1-1"), skipping.names);
+	}
+
+	@Test
+	void skippedLastFloorResumesAtTheNextBuilding() {
+		City city = VisitorBenchmark.city(2, 2, 1);
+		Recording skipping = new Recording(name -> name.equals("Floor1") ? VisitResult.SKIP_SUBTREE
+				: VisitResult.CONTINUE);
+		new FusedVisitor(List.of(skipping, new Recording(name -> VisitResult.CONTINUE))).run(city);
+		assertEquals(List.of("City",
+				"Building0", "Floor0", "Apartment0-0-0", "Floor1",
+				"Building1", "Floor0", "Apartment1-0-0", "Floor1"), skipping.names);
+	}
+
+	@Test
+	void walkIsPrunedWhenEveryVisitorSkips() {
+		City city = VisitorBenchmark.city(2, 2, 1);
+		Recording first = new Recording(name -> name.startsWith("Floor") ? VisitResult.SKIP_SUBTREE
+				: VisitResult.CONTINUE);
+		Recording second = new Recording(name -> name.startsWith("Floor") ? VisitResult.SKIP_SUBTREE
+				: VisitResult.CONTINUE);
+		assertEquals(VisitResult.CONTINUE, new FusedVisitor(List.of(first, second)).run(city));
+		List<String> expected = List.of("City", "Building0", "Floor0", "Floor1", "Building1", "Floor0", "Floor1");
+		assertEquals(expected, first.names);
+		assertEquals(expected, second.names);
+	}
+
+	@Test
+	void stoppedVisitorStaysOut() {
+		City city = VisitorBenchmark.city(3, 1, 1);
+		Recording stopping = new Recording(name -> name.equals("Floor0") ? VisitResult.STOP : VisitResult.CONTINUE);
+		Recording all = new Recording(name -> VisitResult.CONTINUE);
+		assertEquals(VisitResult.CONTINUE, new FusedVisitor(List.of(stopping, all)).run(city));
+		assertEquals(List.of("City", "Building0", "Floor0"), stopping.names);
+		assertEquals(NamesVisitor.sequential(city), all.names);
+	}
+
+	@Test
+	void walkStopsOnceEveryVisitorStopped() {
+		City city = VisitorBenchmark.city(3, 2, 2);
+		Recording first = new Recording(name -> name.equals("Building0") ? VisitResult.STOP : VisitResult.CONTINUE);
+		Recording second = new Recording(name -> name.equals("Apartment1-0-1") ? VisitResult.STOP
+				: VisitResult.CONTINUE);
+		assertEquals(VisitResult.STOP, new FusedVisitor(List.of(first, second)).run(city));
+		assertEquals(List.of("City", "Building0"), first.names);
+		// nothing is visited after the last visitor stopped
+		assertEquals(List.of("City",
+				"Building0", "Floor0", "Apartment0-0-0", "Apartment0-0-1", "Floor1", "Apartment0-1-0", "Apartment0-1-1",
+				"Building1", "Floor0", "Apartment1-0-0", "Apartment1-0-1"), second.names);
+	}
+
+	@Test
+	void sameInstanceRunsAgainFromScratch() {
+		City city = VisitorBenchmark.city(2, 1, 1);
+		Recording stopping = new Recording(name -> name.equals("Building0") ? VisitResult.STOP : VisitResult.CONTINUE);
+		Recording skipping = new Recording(name -> name.equals("Floor0") ? VisitResult.SKIP_SUBTREE
+				: name.equals("Building1") ? VisitResult.STOP : VisitResult.CONTINUE);
+		FusedVisitor fused = new FusedVisitor(List.of(stopping, skipping));
+		List<String> once = List.of("City", "Building0", "Floor0", "Building1");
+
+		assertEquals(VisitResult.STOP, fused.run(city));
+		assertEquals(List.of("City", "Building0"), stopping.names);
+		assertEquals(once, skipping.names);
+
+		stopping.names.clear();
+		skipping.names.clear();
+		assertEquals(VisitResult.STOP, fused.run(city));
+		assertEquals(List.of("City", "Building0"), stopping.names);
+		assertEquals(once, skipping.names);
+	}
+
+	// records the names it is shown and answers with the decision for each
+	private static final class Recording implements TraversalVisitor {
+
+		private final Function<String, VisitResult> decision;
+
+		private final List<String> names = new ArrayList<>();
+
+		Recording(Function<String, VisitResult> decision) {
+			this.decision = decision;
+		}
+
+		private VisitResult record(String name) {
+			names.add(name);
+			return decision.apply(name);
+		}
+
+		@Override
+		public VisitResult visitCity(City city) {
+			return record(city.getName());
+		}
+
+		@Override
+		public VisitResult visitBuilding(Building building) {
+			return record(building.getName());
+		}
+
+		@Override
+		public VisitResult visitFloor(Floor floor) {
+			return record(floor.getName());
+		}
+
+		@Override
+		public VisitResult visitApartment(Apartment apartment) {
+			return record(apartment.getName());
+		}
+	}
+}
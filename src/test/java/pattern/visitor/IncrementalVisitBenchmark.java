@@ -0,0 +1,47 @@
+package pattern.visitor;
+
+import java.util.Random;
+
+// Hand-rolled, the build has no JMH: refreshing a count after renaming one apartment, with a full walk and
+// with an incremental visit.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.IncrementalVisitBenchmark [buildings] [edits]
+public class IncrementalVisitBenchmark {
+
+	public static void main(String[] args) {
+		int buildings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+		int edits = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+		City city = VisitorBenchmark.city(buildings, 25, 40);
+		System.out.println(String.format("%,d apartments, %d edits", buildings * 25L * 40, edits));
+
+		IncrementalVisit<CountingVisitor.Counts> incremental = new IncrementalVisit<>(new CountingVisitor());
+		long start = System.nanoTime();
+		incremental.visit(city);
+		System.out.println(String.format("first incremental visit %10.1f ms, fills the cache", (System.nanoTime() - start) / 1e6));
+
+		Random random = new Random(42);
+		long fullNanos = 0;
+		long incrementalNanos = 0;
+		long recomputedBefore = incremental.getRecomputed();
+		for (int edit = 0; edit < edits; edit++) {
+			Building building = city.getBuildings().get(random.nextInt(buildings));
+			Floor floor = building.getFloors().get(random.nextInt(25));
+			Apartment apartment = floor.getApartments().get(random.nextInt(40));
+			apartment.setName(apartment.getName() + "'");
+
+			start = System.nanoTime();
+			CountingVisitor full = new CountingVisitor();
+			city.accept(full);
+			fullNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			CountingVisitor.Counts counts = incremental.visit(city);
+			incrementalNanos += System.nanoTime() - start;
+			if (!counts.equals(full.result())) {
+				throw new IllegalStateException(counts + " differs from " + full.result());
+			}
+		}
+		System.out.println(String.format("full walk               %10.3f ms per refresh", fullNanos / 1e6 / edits));
+		System.out.println(String.format("incremental             %10.3f ms per refresh, %.1f nodes recomputed",
+				incrementalNanos / 1e6 / edits, (double) (incremental.getRecomputed() - recomputedBefore) / edits));
+	}
+}
@@ -0,0 +1,121 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IncrementalVisitTests {
+
+	@Test
+	void unchangedGraphIsAnsweredFromTheCache() {
+		City city = VisitorBenchmark.city(3, 2, 4);
+		IncrementalVisit<CountingVisitor.Counts> visit = new IncrementalVisit<>(new CountingVisitor());
+		assertEquals(counts(city), visit.visit(city));
+		long nodes = visit.getRecomputed();
+		assertEquals(1 + 3 + 3 * 2 + 3 * 2 * 4, nodes);
+		assertEquals(counts(city), visit.visit(city));
+		assertEquals(nodes, visit.getRecomputed());
+	}
+
+	@Test
+	void changedApartmentRecomputesItsPathOnly() {
+		City city = VisitorBenchmark.city(3, 2, 4);
+		IncrementalVisit<CountingVisitor.Counts> visit = new IncrementalVisit<>(new CountingVisitor());
+		visit.visit(city);
+		long before = visit.getRecomputed();
+		city.getBuildings().get(1).getFloors().get(0).getApartments().get(2).setName("Penthouse with a view");
+		assertEquals(counts(city), visit.visit(city));
+		// the apartment, its floor, its building and the city
+		assertEquals(before + 4, visit.getRecomputed());
+	}
+
+	@Test
+	void replacedChildrenAreCounted() {
+		City city = VisitorBenchmark.city(2, 2, 2);
+		IncrementalVisit<CountingVisitor.Counts> visit = new IncrementalVisit<>(new CountingVisitor());
+		visit.visit(city);
+		Floor floor = city.getBuildings().get(0).getFloors().get(1);
+		List<Apartment> apartments = new ArrayList<>(floor.getApartments());
+		apartments.add(new Apartment("Studio"));
+		floor.setApartments(apartments);
+		assertEquals(counts(city), visit.visit(city));
+		assertEquals(2 * 2 * 2 + 1, visit.visit(city).apartments());
+	}
+
+	@Test
+	void laterChangesToTheGivenListAreIgnored() {
+		Floor floor = new Floor("Ground");
+		List<Apartment> apartments = new ArrayList<>(List.of(new Apartment("A")));
+		floor.setApartments(apartments);
+		long version = floor.getVersion();
+		apartments.add(new Apartment("B"));
+		assertEquals(1, floor.getApartments().size());
+		assertEquals(version, floor.getVersion());
+	}
+
+	@Test
+	void childWithAParentIsRefused() {
+		Apartment apartment = new Apartment("A");
+		Floor first = new Floor("First");
+		first.setApartments(List.of(apartment));
+		Floor second = new Floor("Second");
+		long version = second.getVersion();
+		assertThrows(IllegalArgumentException.class, () -> second.setApartments(List.of(apartment)));
+		assertEquals(List.of(), second.getApartments());
+		assertEquals(version, second.getVersion());
+	}
+
+	@Test
+	void childLeftOutCanMove() {
+		Apartment apartment = new Apartment("A");
+		Floor first = new Floor("First");
+		first.setApartments(List.of(apartment));
+		Floor second = new Floor("Second");
+		first.setApartments(List.of());
+		second.setApartments(List.of(apartment));
+
+		long firstVersion = first.getVersion();
+		long secondVersion = second.getVersion();
+		apartment.setName("B");
+		assertEquals(firstVersion, first.getVersion());
+		assertEquals(secondVersion + 1, second.getVersion());
+	}
+
+	@Test
+	void keptChildrenStayAdopted() {
+		Apartment kept = new Apartment("A");
+		Floor floor = new Floor("Ground");
+		floor.setApartments(List.of(kept, new Apartment("B")));
+		floor.setApartments(List.of(kept));
+		long version = floor.getVersion();
+		kept.setName("C");
+		assertEquals(version + 1, floor.getVersion());
+	}
+
+	@Test
+	void nullChildIsRefused() {
+		Floor floor = new Floor("Ground");
+		assertThrows(NullPointerException.class, () -> floor.setApartments(Arrays.asList(new Apartment("A"), null)));
+		assertEquals(List.of(), floor.getApartments());
+	}
+
+	@Test
+	void nodesFromOutsideTheGraphAreRecomputedEveryTime() {
+		Visited outside = visitor -> { };
+		IncrementalVisit<CountingVisitor.Counts> visit = new IncrementalVisit<>(new CountingVisitor());
+		visit.visit(outside);
+		visit.visit(outside);
+		assertEquals(2, visit.getRecomputed());
+	}
+
+	private static CountingVisitor.Counts counts(City city) {
+		CountingVisitor visitor = new CountingVisitor();
+		city.accept(visitor);
+		return visitor.result();
+	}
+}
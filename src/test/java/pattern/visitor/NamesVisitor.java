@@ -0,0 +1,53 @@
+package pattern.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Records every visited name in visiting order, combining keeps the left part first
+class NamesVisitor implements ParallelVisitor<List<String>> {
+
+	private final List<String> names = new ArrayList<>();
+
+	@Override
+	public void visitCity(City city) {
+		names.add(city.getName());
+	}
+
+	@Override
+	public void visitBuilding(Building building) {
+		names.add(building.getName());
+	}
+
+	@Override
+	public void visitFloor(Floor floor) {
+		names.add(floor.getName());
+	}
+
+	@Override
+	public void visitApartment(Apartment apartment) {
+		names.add(apartment.getName());
+	}
+
+	@Override
+	public ParallelVisitor<List<String>> fork() {
+		return new NamesVisitor();
+	}
+
+	@Override
+	public List<String> result() {
+		return names;
+	}
+
+	@Override
+	public List<String> combine(List<String> left, List<String> right) {
+		List<String> combined = new ArrayList<>(left);
+		combined.addAll(right);
+		return combined;
+	}
+
+	static List<String> sequential(Visited root) {
+		NamesVisitor visitor = new NamesVisitor();
+		root.accept(visitor);
+		return visitor.result();
+	}
+}
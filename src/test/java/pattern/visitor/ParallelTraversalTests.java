@@ -0,0 +1,88 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelTraversalTests {
+
+	@Test
+	void mergedResultKeepsTheSequentialOrder() {
+		City city = VisitorBenchmark.city(7, 3 * ParallelTraversal.FLOORS_PER_TASK + 1, 3);
+		assertEquals(NamesVisitor.sequential(city), city.acceptParallel(new NamesVisitor()));
+	}
+
+	@Test
+	void countsMatchTheSequentialVisit() {
+		for (int floors : new int[] { 0, 1, ParallelTraversal.FLOORS_PER_TASK, ParallelTraversal.FLOORS_PER_TASK + 1, 50 }) {
+			City city = VisitorBenchmark.city(5, floors, 4);
+			assertEquals(sequentialCounts(city), city.acceptParallel(new CountingVisitor()), floors + " floors");
+		}
+	}
+
+	@Test
+	void cityWithoutBuildings() {
+		City city = new City("Empty");
+		assertEquals(new CountingVisitor.Counts(1, 0, 0, 0, 5), city.acceptParallel(new CountingVisitor()));
+		assertEquals(List.of("Empty"), city.acceptParallel(new NamesVisitor()));
+	}
+
+	@Test
+	void unevenBuildings() {
+		City city = new City("City");
+		List<Building> buildings = new ArrayList<>();
+		for (int floors : new int[] { 0, 20, 1, 0, ParallelTraversal.FLOORS_PER_TASK * 2 + 3 }) {
+			Building building = new Building("Building" + buildings.size());
+			building.setFloors(floors(floors, floors % 3));
+			buildings.add(building);
+		}
+		city.setBuildings(buildings);
+		assertEquals(NamesVisitor.sequential(city), city.acceptParallel(new NamesVisitor()));
+	}
+
+	@Test
+	void ownPool() {
+		City city = VisitorBenchmark.city(40, 20, 5);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			assertEquals(NamesVisitor.sequential(city), city.acceptParallel(new NamesVisitor(), pool));
+			assertEquals(sequentialCounts(city), city.acceptParallel(new CountingVisitor(), pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void sameVisitorCanBePassedAgain() {
+		City city = VisitorBenchmark.city(3, 2, 2);
+		NamesVisitor visitor = new NamesVisitor();
+		assertEquals(NamesVisitor.sequential(city), city.acceptParallel(visitor));
+		assertEquals(NamesVisitor.sequential(city), city.acceptParallel(visitor));
+		// every node went to a fork
+		assertEquals(List.of(), visitor.result());
+	}
+
+	private static List<Floor> floors(int count, int apartments) {
+		List<Floor> floors = new ArrayList<>();
+		for (int f = 0; f < count; f++) {
+			Floor floor = new Floor("Floor" + f);
+			List<Apartment> floorApartments = new ArrayList<>();
+			for (int a = 0; a < apartments; a++) {
+				floorApartments.add(new Apartment("Apartment" + f + "-" + a));
+			}
+			floor.setApartments(floorApartments);
+			floors.add(floor);
+		}
+		return floors;
+	}
+
+	private static CountingVisitor.Counts sequentialCounts(City city) {
+		CountingVisitor visitor = new CountingVisitor();
+		city.accept(visitor);
+		return visitor.result();
+	}
+}
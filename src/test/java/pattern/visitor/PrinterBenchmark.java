@@ -0,0 +1,101 @@
+package pattern.visitor;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+// Hand-rolled, the build has no JMH: dumps a city with the English printer to a file through each sink, and
+// through println on an autoflushing PrintStream like System.out, the way the printers used to write.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.PrinterBenchmark [buildings]
+public class PrinterBenchmark {
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException {
+		int buildings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+		City city = VisitorBenchmark.city(buildings, 25, 40);
+		Path file = Files.createTempFile("city", ".txt");
+		System.out.println(String.format("%,d apartments", buildings * 25L * 40));
+		try {
+			measure("println, autoflush", file, city, path -> new PrintlnVisitor(printStream(path)));
+			measure("BufferedWriter", file, city, path -> sink(path));
+			measure("FileChannel", file, city, path -> PrinterSink.toFile(path));
+			StringBuilder memory = new StringBuilder();
+			measure("StringBuilder", null, city, path -> {
+				memory.setLength(0);
+				return PrinterSink.of(memory);
+			});
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	private static void measure(String name, Path file, City city, Function<Path, Object> open) throws IOException {
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			Object output = open.apply(file);
+			if (output instanceof PrintlnVisitor visitor) {
+				city.accept(visitor);
+				visitor.out.close();
+			} else {
+				try (PrinterSink sink = (PrinterSink) output) {
+					city.accept(new EnglishPrinterVisitor(sink));
+				}
+			}
+			best = Math.min(best, System.nanoTime() - start);
+		}
+		System.out.println(String.format("%-20s %8.1f ms %8.1f MB", name, best / 1e6,
+				file == null ? 0 : Files.size(file) / 1e6));
+	}
+
+	private static PrinterSink sink(Path path) {
+		try {
+			BufferedWriter writer = Files.newBufferedWriter(path);
+			return PrinterSink.of(writer);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static PrintStream printStream(Path path) {
+		try {
+			return new PrintStream(new FileOutputStream(path.toFile()), true);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class PrintlnVisitor implements Visitor {
+
+		private final PrintStream out;
+
+		PrintlnVisitor(PrintStream out) {
+			this.out = out;
+		}
+
+		@Override
+		public void visitCity(City city) {
+			out.println("City: " + city.getName());
+		}
+
+		@Override
+		public void visitBuilding(Building building) {
+			out.println("\tBuilding: " + building.getName());
+		}
+
+		@Override
+		public void visitFloor(Floor floor) {
+			out.println("\t\tFloor: " + floor.getName());
+		}
+
+		@Override
+		public void visitApartment(Apartment apartment) {
+			out.println("\t\t\tApartment: " + apartment.getName());
+		}
+	}
+}
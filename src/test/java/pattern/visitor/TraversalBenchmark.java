@@ -0,0 +1,85 @@
+package pattern.visitor;
+
+import java.util.function.Supplier;
+
+// Hand-rolled, the build has no JMH: a full walk through accept against pruned and stopped traversals.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.TraversalBenchmark [buildings] [floors] [apartments per floor]
+public class TraversalBenchmark {
+
+	private static final int ROUNDS = 20;
+
+	private static long sink;
+
+	public static void main(String[] args) {
+		int buildings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+		int floors = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+		int apartments = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+		City city = VisitorBenchmark.city(buildings, floors, apartments);
+		String building = "Building" + buildings / 2;
+		String apartment = "Apartment" + buildings / 2 + "-" + floors / 2 + "-" + apartments / 2;
+		System.out.println(String.format("%,d apartments, looking for %s", (long) buildings * floors * apartments, apartment));
+
+		measure("full walk, accept", () -> {
+			CountingVisitor visitor = new CountingVisitor();
+			city.accept(visitor);
+			return visitor.result().apartments();
+		});
+		measure("full walk, depth-first", () -> {
+			CountingVisitor visitor = new CountingVisitor();
+			Traversal.depthFirst(city, TraversalVisitor.of(visitor));
+			return visitor.result().apartments();
+		});
+		measure("find, stop only", () -> find(city, null, apartment));
+		measure("find, pruned", () -> find(city, building, apartment));
+		measure("one building, pruned", () -> {
+			long[] count = new long[1];
+			Traversal.depthFirst(city, new TraversalVisitor() {
+				@Override
+				public VisitResult visitBuilding(Building visited) {
+					return visited.getName().equals(building) ? VisitResult.CONTINUE : VisitResult.SKIP_SUBTREE;
+				}
+
+				@Override
+				public VisitResult visitApartment(Apartment visited) {
+					count[0]++;
+					return VisitResult.CONTINUE;
+				}
+			});
+			return count[0];
+		});
+		if (sink == 42) {
+			System.out.println();
+		}
+	}
+
+	// the number of apartments looked at before the match
+	private static long find(City city, String building, String apartment) {
+		long[] seen = new long[1];
+		Traversal.depthFirst(city, new TraversalVisitor() {
+			@Override
+			public VisitResult visitBuilding(Building visited) {
+				return building == null || visited.getName().equals(building) ? VisitResult.CONTINUE
+						: VisitResult.SKIP_SUBTREE;
+			}
+
+			@Override
+			public VisitResult visitApartment(Apartment visited) {
+				seen[0]++;
+				return visited.getName().equals(apartment) ? VisitResult.STOP : VisitResult.CONTINUE;
+			}
+		});
+		return seen[0];
+	}
+
+	private static void measure(String name, Supplier<Long> query) {
+		long apartments = 0;
+		long best = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			long start = System.nanoTime();
+			apartments = query.get();
+			best = Math.min(best, System.nanoTime() - start);
+			sink += apartments;
+		}
+		System.out.println(String.format("%-24s %10.3f ms   %,10d apartments visited", name, best / 1e6, apartments));
+	}
+}
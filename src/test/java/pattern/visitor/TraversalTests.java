@@ -0,0 +1,91 @@
+package pattern.visitor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TraversalTests {
+
+	@Test
+	void depthFirstVisitsInAcceptOrder() {
+		City city = VisitorBenchmark.city(2, 2, 1);
+		List<String> names = new ArrayList<>();
+		assertEquals(VisitResult.CONTINUE, Traversal.depthFirst(city, recording(names, "", "")));
+		assertEquals(List.of("City",
+				"Building0", "Floor0", "Apartment0-0-0", "Floor1", "Apartment0-1-0",
+				"Building1", "Floor0", "Apartment1-0-0", "Floor1", "Apartment1-1-0"), names);
+	}
+
+	@Test
+	void breadthFirstVisitsLevelByLevel() {
+		City city = VisitorBenchmark.city(2, 1, 1);
+		List<String> names = new ArrayList<>();
+		assertEquals(VisitResult.CONTINUE, Traversal.breadthFirst(city, recording(names, "", "")));
+		assertEquals(List.of("City", "Building0", "Building1", "Floor0", "Floor0", "Apartment0-0-0", "Apartment1-0-0"),
+				names);
+	}
+
+	@Test
+	void skippedSubtreeIsNotVisited() {
+		City city = VisitorBenchmark.city(2, 2, 1);
+		List<String> names = new ArrayList<>();
+		Traversal.depthFirst(city, recording(names, "Building0", ""));
+		assertEquals(List.of("City", "Building0", "Building1", "Floor0", "Apartment1-0-0", "Floor1", "Apartment1-1-0"),
+				names);
+	}
+
+	@Test
+	void stopEndsTheWalk() {
+		City city = VisitorBenchmark.city(2, 2, 1);
+		List<String> names = new ArrayList<>();
+		assertEquals(VisitResult.STOP, Traversal.breadthFirst(city, recording(names, "", "Floor0")));
+		assertEquals(List.of("City", "Building0", "Building1", "Floor0"), names);
+	}
+
+	@Test
+	void nodesFromOutsideTheGraphArePassedOver() {
+		// implements only what Visited required before traversals existed
+		Visited outside = new Visited() {
+			@Override
+			public void accept(Visitor visitor) {
+			}
+		};
+		List<String> names = new ArrayList<>();
+		assertEquals(VisitResult.CONTINUE, Traversal.depthFirst(outside, recording(names, "", "")));
+		assertEquals(VisitResult.CONTINUE, Traversal.breadthFirst(outside, recording(names, "", "")));
+		assertEquals(List.of(), names);
+	}
+
+	private static TraversalVisitor recording(List<String> names, String skip, String stop) {
+		return new TraversalVisitor() {
+			@Override
+			public VisitResult visitCity(City city) {
+				return record(city.getName());
+			}
+
+			@Override
+			public VisitResult visitBuilding(Building building) {
+				return record(building.getName());
+			}
+
+			@Override
+			public VisitResult visitFloor(Floor floor) {
+				return record(floor.getName());
+			}
+
+			@Override
+			public VisitResult visitApartment(Apartment apartment) {
+				return record(apartment.getName());
+			}
+
+			private VisitResult record(String name) {
+				names.add(name);
+				return name.equals(stop) ? VisitResult.STOP
+						: name.equals(skip) ? VisitResult.SKIP_SUBTREE : VisitResult.CONTINUE;
+			}
+		};
+	}
+}
@@ -0,0 +1,63 @@
+package pattern.visitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Hand-rolled, the build has no JMH.
+// Run with: java -cp target/classes:target/test-classes pattern.visitor.VisitorBenchmark [buildings] [floors] [apartments per floor]
+public class VisitorBenchmark {
+
+	public static void main(String[] args) {
+		int buildings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+		int floors = args.length > 1 ? Integer.parseInt(args[1]) : 25;
+		int apartments = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+		City city = city(buildings, floors, apartments);
+		System.out.println(String.format("%,d apartments, parallelism %d", (long) buildings * floors * apartments,
+				ForkJoinPool.commonPool().getParallelism()));
+
+		CountingVisitor.Counts sequential = null;
+		CountingVisitor.Counts parallel = null;
+		for (int round = 0; round < 10; round++) {
+			long start = System.nanoTime();
+			CountingVisitor visitor = new CountingVisitor();
+			city.accept(visitor);
+			sequential = visitor.result();
+			double sequentialMillis = (System.nanoTime() - start) / 1e6;
+
+			start = System.nanoTime();
+			parallel = city.acceptParallel(new CountingVisitor());
+			double parallelMillis = (System.nanoTime() - start) / 1e6;
+			if (round >= 5) {
+				System.out.println(String.format("sequential %8.1f ms   parallel %8.1f ms", sequentialMillis,
+						parallelMillis));
+			}
+		}
+		if (!sequential.equals(parallel)) {
+			throw new IllegalStateException(sequential + " differs from " + parallel);
+		}
+		System.out.println(parallel);
+	}
+
+	static City city(int buildings, int floors, int apartments) {
+		City city = new City("City");
+		List<Building> cityBuildings = new ArrayList<>();
+		for (int b = 0; b < buildings; b++) {
+			Building building = new Building("Building" + b);
+			List<Floor> buildingFloors = new ArrayList<>();
+			for (int f = 0; f < floors; f++) {
+				Floor floor = new Floor("Floor" + f);
+				List<Apartment> floorApartments = new ArrayList<>();
+				for (int a = 0; a < apartments; a++) {
+					floorApartments.add(new Apartment("Apartment" + b + "-" + f + "-" + a));
+				}
+				floor.setApartments(floorApartments);
+				buildingFloors.add(floor);
+			}
+			building.setFloors(buildingFloors);
+			cityBuildings.add(building);
+		}
+		city.setBuildings(cityBuildings);
+		return city;
+	}
+}
@@ -0,0 +1,70 @@
+#!/usr/bin/env bash
+# Time-to-first-request of a module packaged with ./mvnw package -Pstartup, for each startup mode.
+# usage: ./startup-report.sh <jwt-security|webflux> [runs]
+# extra JVM options (database url, ...) can be passed with STARTUP_OPTS
+set -euo pipefail
+
+MODULE=${1:?usage: startup-report.sh <jwt-security|webflux> [runs]}
+RUNS=${2:-5}
+PORT=${PORT:-8080}
+
+case "$MODULE" in
+	jwt-security)
+		MAIN=fr.leblanc.security.SecurityApplication
+		URL=http://localhost:$PORT/api/v1/demo-controller ;;
+	webflux)
+		MAIN=fr.leblanc.webflux.WebfluxApplication
+		URL=http://localhost:$PORT/car/all ;;
+	*)
+		echo "unknown module $MODULE" >&2
+		exit 1 ;;
+esac
+
+TARGET=$(cd "$(dirname "$0")/$MODULE/target" && pwd)
+JAR=$(ls "$TARGET"/*-SNAPSHOT.jar)
+CLASSPATH="$JAR:$TARGET/startup/lib/*"
+ARCHIVE=$TARGET/startup/app.jsa
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+
+declare -A MODES=(
+	["jit"]=""
+	["lazy"]="-Dspring.profiles.active=startup"
+	["aot"]="-Dspring.aot.enabled=true"
+	["aot+lazy"]="-Dspring.aot.enabled=true -Dspring.profiles.active=startup"
+)
+if [ -f "$ARCHIVE" ]; then
+	MODES["aot+cds"]="-XX:SharedArchiveFile=$ARCHIVE -Dspring.aot.enabled=true"
+	MODES["aot+cds+lazy"]="-XX:SharedArchiveFile=$ARCHIVE -Dspring.aot.enabled=true -Dspring.profiles.active=startup"
+fi
+
+first_request_millis() {
+	local start pid elapsed
+	start=$(date +%s%3N)
+	# shellcheck disable=SC2086
+	"$JAVA" $1 ${STARTUP_OPTS:-} -Dserver.port="$PORT" -cp "$CLASSPATH" "$MAIN" > /dev/null 2>&1 &
+	pid=$!
+	until curl -s -o /dev/null "$URL"; do
+		if ! kill -0 "$pid" 2> /dev/null; then
+			echo "application exited before serving a request" >&2
+			exit 1
+		fi
+		sleep 0.01
+	done
+	elapsed=$(( $(date +%s%3N) - start ))
+	kill "$pid"
+	wait "$pid" || true
+	echo "$elapsed"
+}
+
+printf '%-14s %10s %10s %10s\n' "mode" "min ms" "avg ms" "max ms"
+for mode in jit lazy aot aot+lazy aot+cds aot+cds+lazy; do
+	[ -n "${MODES[$mode]+set}" ] || continue
+	min=0; max=0; total=0
+	for _ in $(seq "$RUNS"); do
+		millis=$(first_request_millis "${MODES[$mode]}")
+		total=$(( total + millis ))
+		if [ "$min" -eq 0 ] || [ "$millis" -lt "$min" ]; then min=$millis; fi
+		if [ "$millis" -gt "$max" ]; then max=$millis; fi
+	done
+	printf '%-14s %10d %10d %10d\n' "$mode" "$min" "$(( total / RUNS ))" "$max"
+done
@@ -0,0 +1,225 @@
+package fr.leblanc.webflux.config;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// answers 429/503 up front instead of letting requests queue for a database connection until they time out
+@Component
+public class AdmissionControlFilter implements WebFilter, Ordered {
+
+	// whole-table reads and writes, one of them holds a connection far longer than a single car lookup
+	private static final Set<String> BULK_PATHS = Set.of("/car/all", "/car/export", "/car/import", "/car/stats",
+			"/car/stats/brands");
+
+	// long-lived event streams hold no connection
+	private static final String CHANGES_PATH = "/car/changes";
+
+	// buckets whose burst has refilled are swept off the map on a timer, not on the request path
+	private static final Duration EVICTION_INTERVAL = Duration.ofSeconds(1);
+
+	private final boolean enabled;
+
+	private final Route bulk;
+
+	private final Route single;
+
+	private final long ratePerSecond;
+
+	private final long burst;
+
+	private final String clientHeader;
+
+	private final ConnectionAcquireMonitor connectionAcquireMonitor;
+
+	private final Map<String, TokenBucket> clients = new ConcurrentHashMap<>();
+
+	private final LongSupplier nanoTime;
+
+	private final Disposable eviction;
+
+	@Autowired
+	public AdmissionControlFilter(ConnectionAcquireMonitor connectionAcquireMonitor,
+			@Value("${car.admission.enabled:true}") boolean enabled,
+			@Value("${car.admission.concurrency.bulk:16}") int bulkConcurrency,
+			@Value("${car.admission.concurrency.single:256}") int singleConcurrency,
+			@Value("${car.admission.rate.per-second:0}") long ratePerSecond,
+			@Value("${car.admission.rate.burst:0}") long burst,
+			@Value("${car.admission.client-header:}") String clientHeader,
+			@Value("${car.admission.shed.acquire-latency:0ms}") Duration shedLatency) {
+		this(connectionAcquireMonitor, enabled, bulkConcurrency, singleConcurrency, ratePerSecond, burst, clientHeader,
+				shedLatency, System::nanoTime);
+	}
+
+	AdmissionControlFilter(ConnectionAcquireMonitor connectionAcquireMonitor, boolean enabled, int bulkConcurrency,
+			int singleConcurrency, long ratePerSecond, long burst, String clientHeader, Duration shedLatency,
+			LongSupplier nanoTime) {
+		this.connectionAcquireMonitor = connectionAcquireMonitor;
+		this.enabled = enabled;
+		this.bulk = new Route(bulkConcurrency, shedLatency);
+		// single car requests are shed last, at twice the latency
+		this.single = new Route(singleConcurrency, shedLatency.multipliedBy(2));
+		this.ratePerSecond = ratePerSecond;
+		this.burst = Math.max(burst, 1);
+		this.clientHeader = clientHeader;
+		this.nanoTime = nanoTime;
+		this.eviction = enabled && ratePerSecond > 0
+				? Flux.interval(EVICTION_INTERVAL, EVICTION_INTERVAL).subscribe(tick -> evictIdleClients())
+				: Disposables.disposed();
+	}
+
+	@PreDestroy
+	public void stop() {
+		eviction.dispose();
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.HIGHEST_PRECEDENCE;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		ServerHttpRequest request = exchange.getRequest();
+		String path = request.getPath().pathWithinApplication().value();
+		if (!enabled || !(path.equals("/car") || path.startsWith("/car/"))) {
+			return chain.filter(exchange);
+		}
+		if (ratePerSecond > 0 && !clientBucket(request).tryAcquire(nanoTime.getAsLong())) {
+			return reject(exchange, HttpStatus.TOO_MANY_REQUESTS);
+		}
+		if (path.equals(CHANGES_PATH)) {
+			return chain.filter(exchange);
+		}
+		Route route = BULK_PATHS.contains(path) ? bulk : single;
+		if (route.shouldShed(connectionAcquireMonitor.getAcquireLatency()) || !route.tryAcquire()) {
+			return reject(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+		}
+		return chain.filter(exchange).doFinally(signal -> route.release());
+	}
+
+	private TokenBucket clientBucket(ServerHttpRequest request) {
+		return clients.computeIfAbsent(clientKey(request), key -> new TokenBucket(ratePerSecond, burst, nanoTime.getAsLong()));
+	}
+
+	// a bucket evicted while a request takes a token only forgets that token
+	void evictIdleClients() {
+		long now = nanoTime.getAsLong();
+		clients.values().removeIf(bucket -> bucket.isIdle(now));
+	}
+
+	int trackedClients() {
+		return clients.size();
+	}
+
+	// the first forwarded address when behind a trusted proxy, the peer address otherwise
+	private String clientKey(ServerHttpRequest request) {
+		if (StringUtils.hasText(clientHeader)) {
+			String forwarded = request.getHeaders().getFirst(clientHeader);
+			if (StringUtils.hasText(forwarded)) {
+				return forwarded.split(",", 2)[0].trim();
+			}
+		}
+		InetSocketAddress remoteAddress = request.getRemoteAddress();
+		if (remoteAddress == null) {
+			return "unknown";
+		}
+		// an unresolved address has no InetAddress, only the host it was given
+		return remoteAddress.isUnresolved() ? remoteAddress.getHostString() : remoteAddress.getAddress().getHostAddress();
+	}
+
+	private static Mono<Void> reject(ServerWebExchange exchange, HttpStatus status) {
+		exchange.getResponse().setStatusCode(status);
+		exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+		return exchange.getResponse().setComplete();
+	}
+
+	private static final class Route {
+
+		private final int maxConcurrency;
+
+		private final Duration shedLatency;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		Route(int maxConcurrency, Duration shedLatency) {
+			this.maxConcurrency = maxConcurrency;
+			this.shedLatency = shedLatency;
+		}
+
+		boolean shouldShed(Duration acquireLatency) {
+			return !shedLatency.isZero() && acquireLatency.compareTo(shedLatency) > 0;
+		}
+
+		boolean tryAcquire() {
+			if (inFlight.incrementAndGet() > maxConcurrency) {
+				inFlight.decrementAndGet();
+				return false;
+			}
+			return true;
+		}
+
+		void release() {
+			inFlight.decrementAndGet();
+		}
+
+	}
+
+	// generic cell rate algorithm: one timestamp per client, updated with a compare-and-set
+	private static final class TokenBucket {
+
+		private final long intervalNanos;
+
+		private final long burstNanos;
+
+		private final AtomicLong theoreticalArrival;
+
+		TokenBucket(long ratePerSecond, long burst, long now) {
+			this.intervalNanos = Duration.ofSeconds(1).toNanos() / ratePerSecond;
+			this.burstNanos = intervalNanos * burst;
+			this.theoreticalArrival = new AtomicLong(now);
+		}
+
+		boolean tryAcquire(long now) {
+			while (true) {
+				long arrival = theoreticalArrival.get();
+				long next = Math.max(arrival, now) + intervalNanos;
+				if (next - now > burstNanos) {
+					return false;
+				}
+				if (theoreticalArrival.compareAndSet(arrival, next)) {
+					return true;
+				}
+			}
+		}
+
+		boolean isIdle(long now) {
+			return theoreticalArrival.get() - now < 0;
+		}
+
+	}
+
+}
@@ -0,0 +1,129 @@
+package fr.leblanc.webflux.config;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.EncodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class CodecConfig implements WebFluxConfigurer {
+
+	public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+	public static final String APPLICATION_STREAM_SMILE_VALUE = "application/stream+x-jackson-smile";
+
+	private static final MimeType[] SMILE_MIME_TYPES = { MimeType.valueOf(APPLICATION_SMILE_VALUE),
+			MimeType.valueOf("application/*+x-jackson-smile") };
+
+	private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+	public CodecConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+		this.objectMapperBuilder = objectMapperBuilder;
+	}
+
+	@Override
+	public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+		// same Jackson customizations as the JSON codecs, Smile binary format on the wire
+		ObjectMapper smileMapper = objectMapperBuilder.factory(new SmileFactory()).build();
+		configurer.defaultCodecs().jackson2SmileEncoder(new SmileArrayEncoder(smileMapper));
+		configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, SMILE_MIME_TYPES));
+	}
+
+	// Jackson encoders join a non-streaming Flux with JSON array tokens, which is not valid Smile: write a Smile
+	// array instead, one element at a time through the same generator, so the list is never held in memory.
+	// Streaming media types still write one document per value.
+	static class SmileArrayEncoder extends Jackson2SmileEncoder {
+
+		SmileArrayEncoder(ObjectMapper mapper) {
+			super(mapper, SMILE_MIME_TYPES);
+		}
+
+		@Override
+		public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+				ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+			if (inputStream instanceof Mono || getStreamingMediaTypeSeparator(mimeType) != null) {
+				return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+			}
+			return Flux.using(() -> new SmileArrayWriter(getObjectMapper()),
+					writer -> Flux.from(inputStream)
+							.<DataBuffer>handle((element, sink) -> {
+								byte[] chunk = writer.write(element);
+								if (chunk != null) {
+									sink.next(bufferFactory.wrap(chunk));
+								}
+							})
+							.concatWith(Mono.fromCallable(() -> bufferFactory.wrap(writer.end()))),
+					SmileArrayWriter::close);
+		}
+
+	}
+
+	// elements are sent in chunks of about CHUNK_SIZE bytes rather than one small buffer each
+	static class SmileArrayWriter {
+
+		private static final int CHUNK_SIZE = 8192;
+
+		private final ObjectMapper mapper;
+
+		private final ByteArrayBuilder bytes = new ByteArrayBuilder();
+
+		private final JsonGenerator generator;
+
+		SmileArrayWriter(ObjectMapper mapper) throws IOException {
+			this.mapper = mapper;
+			this.generator = mapper.getFactory().createGenerator(bytes);
+			generator.writeStartArray();
+		}
+
+		byte[] write(Object element) {
+			try {
+				mapper.writeValue(generator, element);
+				generator.flush();
+			} catch (IOException e) {
+				throw new EncodingException("Could not write Smile element", e);
+			}
+			return bytes.size() < CHUNK_SIZE ? null : drain();
+		}
+
+		byte[] end() throws IOException {
+			generator.writeEndArray();
+			generator.flush();
+			return drain();
+		}
+
+		void close() {
+			try {
+				generator.close();
+			} catch (IOException e) {
+				// nothing left to send
+			}
+		}
+
+		private byte[] drain() {
+			byte[] drained = bytes.toByteArray();
+			bytes.reset();
+			return drained;
+		}
+
+	}
+
+}
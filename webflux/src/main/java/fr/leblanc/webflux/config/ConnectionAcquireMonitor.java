@@ -0,0 +1,108 @@
+package fr.leblanc.webflux.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+// times connection acquisition through the pool, the earliest sign that the database is the bottleneck
+@Component
+public class ConnectionAcquireMonitor implements BeanPostProcessor {
+
+	private static final double SMOOTHING = 0.2;
+
+	// without acquisitions for that long the pool is considered idle again, shed traffic makes none
+	private static final long STALE_NANOS = Duration.ofSeconds(1).toNanos();
+
+	private final AtomicLong averageNanos = new AtomicLong(Double.doubleToLongBits(0));
+
+	private final LongSupplier nanoTime;
+
+	private volatile long lastSampleNanos;
+
+	@Autowired
+	public ConnectionAcquireMonitor() {
+		this(System::nanoTime);
+	}
+
+	ConnectionAcquireMonitor(LongSupplier nanoTime) {
+		this.nanoTime = nanoTime;
+		this.lastSampleNanos = nanoTime.getAsLong() - STALE_NANOS - 1;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof ConnectionFactory connectionFactory && !(bean instanceof TimedConnectionFactory)) {
+			return new TimedConnectionFactory(connectionFactory);
+		}
+		return bean;
+	}
+
+	public Duration getAcquireLatency() {
+		if (nanoTime.getAsLong() - lastSampleNanos > STALE_NANOS) {
+			return Duration.ZERO;
+		}
+		return Duration.ofNanos((long) Double.longBitsToDouble(averageNanos.get()));
+	}
+
+	private void record(long nanos) {
+		averageNanos.getAndUpdate(bits -> {
+			double average = Double.longBitsToDouble(bits);
+			return Double.doubleToLongBits(average + SMOOTHING * (nanos - average));
+		});
+		lastSampleNanos = nanoTime.getAsLong();
+	}
+
+	// dispose() is the pool's destroy method, kept reachable on the wrapper
+	private class TimedConnectionFactory implements ConnectionFactory, Wrapped<ConnectionFactory>, Disposable {
+
+		private final ConnectionFactory delegate;
+
+		TimedConnectionFactory(ConnectionFactory delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Publisher<? extends Connection> create() {
+			return Mono.defer(() -> {
+				long start = nanoTime.getAsLong();
+				return Mono.from(delegate.create()).doOnNext(connection -> record(nanoTime.getAsLong() - start));
+			});
+		}
+
+		@Override
+		public ConnectionFactoryMetadata getMetadata() {
+			return delegate.getMetadata();
+		}
+
+		@Override
+		public ConnectionFactory unwrap() {
+			return delegate;
+		}
+
+		@Override
+		public void dispose() {
+			if (delegate instanceof Disposable disposable) {
+				disposable.dispose();
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return delegate instanceof Disposable disposable && disposable.isDisposed();
+		}
+
+	}
+
+}
@@ -0,0 +1,98 @@
+package fr.leblanc.webflux.config;
+
+import java.util.Locale;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.server.WebFilter;
+
+import reactor.blockhound.BlockHound;
+import reactor.core.publisher.Mono;
+
+@Configuration
+public class DiagnosticsConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(DiagnosticsConfig.class);
+
+	public static final String REQUEST_THREAD_HEADER = "X-Request-Thread";
+
+	public static final String RESPONSE_THREAD_HEADER = "X-Response-Thread";
+
+	public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+	private final boolean headersEnabled;
+
+	private final boolean blockHoundEnabled;
+
+	private final boolean failOnBlocking;
+
+	public DiagnosticsConfig(@Value("${car.diagnostics.headers:false}") boolean headersEnabled,
+			@Value("${car.diagnostics.blockhound.enabled:false}") boolean blockHoundEnabled,
+			@Value("${car.diagnostics.blockhound.fail-on-blocking:true}") boolean failOnBlocking) {
+		this.headersEnabled = headersEnabled;
+		this.blockHoundEnabled = blockHoundEnabled;
+		this.failOnBlocking = failOnBlocking;
+	}
+
+	// the thread that picked the request up, the one that wrote the response and the time to first byte
+	@Bean
+	public WebFilter diagnosticsHeadersFilter() {
+		return (exchange, chain) -> {
+			if (!headersEnabled) {
+				return chain.filter(exchange);
+			}
+			long start = System.nanoTime();
+			String requestThread = Thread.currentThread().getName();
+			ServerHttpResponse response = exchange.getResponse();
+			response.beforeCommit(() -> {
+				HttpHeaders headers = response.getHeaders();
+				headers.set(REQUEST_THREAD_HEADER, requestThread);
+				headers.set(RESPONSE_THREAD_HEADER, Thread.currentThread().getName());
+				headers.add(SERVER_TIMING_HEADER,
+						String.format(Locale.ROOT, "app;dur=%.3f", (System.nanoTime() - start) / 1_000_000d));
+				return Mono.empty();
+			});
+			return chain.filter(exchange);
+		};
+	}
+
+	// BlockHound is an optional dependency and needs -XX:+AllowRedefinitionToAddDeleteMethods: --spring.profiles.active=blockhound
+	@Bean
+	public ApplicationListener<ApplicationStartedEvent> blockHoundListener() {
+		return event -> {
+			if (!blockHoundEnabled) {
+				return;
+			}
+			if (!ClassUtils.isPresent("reactor.blockhound.BlockHound", DiagnosticsConfig.class.getClassLoader())) {
+				logger.warn("BlockHound is not on the classpath, blocking calls are not detected");
+				return;
+			}
+			BlockHoundInstaller.install(failOnBlocking);
+		};
+	}
+
+	// kept apart so DiagnosticsConfig loads without BlockHound on the classpath
+	private static final class BlockHoundInstaller {
+
+		static void install(boolean failOnBlocking) {
+			// install() applies the Reactor and Netty integrations, a bare builder() would not know their threads
+			BlockHound.install(builder -> {
+				if (!failOnBlocking) {
+					builder.blockingMethodCallback(method -> logger.warn("Blocking call on a non-blocking thread: {}", method,
+							new Exception("Blocking call stack")));
+				}
+			});
+			logger.info("BlockHound installed, blocking calls {}", failOnBlocking ? "fail" : "are logged");
+		}
+
+	}
+
+}
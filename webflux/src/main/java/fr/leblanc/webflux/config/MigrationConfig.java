@@ -0,0 +1,54 @@
+package fr.leblanc.webflux.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MigrationConfig {
+
+	private static final Logger logger = LoggerFactory.getLogger(MigrationConfig.class);
+
+	public enum MigrationMode {
+		// migrate while the application starts
+		STARTUP,
+		// migrate then exit, for a one-shot job run before the pods start: --spring.profiles.active=migrate
+		JOB,
+		// leave the schema to the job: spring.flyway.enabled=false, see MigrationEnvironmentPostProcessor
+		SKIP
+	}
+
+	private final MigrationMode mode;
+
+	public MigrationConfig(@Value("${car.migration.mode:startup}") MigrationMode mode) {
+		this.mode = mode;
+	}
+
+	// an AOT-processed build keeps the Flyway beans it was built with, skip then only avoids connecting
+	@Bean
+	public FlywayMigrationStrategy flywayMigrationStrategy() {
+		return flyway -> {
+			if (mode == MigrationMode.SKIP) {
+				logger.info("Database migration skipped");
+				return;
+			}
+			flyway.migrate();
+		};
+	}
+
+	@Bean
+	public ApplicationListener<ApplicationReadyEvent> migrationJobListener() {
+		return event -> {
+			if (mode == MigrationMode.JOB) {
+				System.exit(SpringApplication.exit(event.getApplicationContext()));
+			}
+		};
+	}
+
+}
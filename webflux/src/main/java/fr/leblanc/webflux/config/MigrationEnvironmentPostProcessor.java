@@ -0,0 +1,26 @@
+package fr.leblanc.webflux.config;
+
+import java.util.Map;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import fr.leblanc.webflux.config.MigrationConfig.MigrationMode;
+
+// skip turns Flyway off before the context is built: no Flyway bean, no JDBC DataSource, no driver loaded
+public class MigrationEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+	@Override
+	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+		MigrationMode mode = Binder.get(environment).bind("car.migration.mode", MigrationMode.class)
+				.orElse(MigrationMode.STARTUP);
+		if (mode == MigrationMode.SKIP) {
+			environment.getPropertySources()
+					.addFirst(new MapPropertySource("carMigrationMode", Map.of("spring.flyway.enabled", false)));
+		}
+	}
+
+}
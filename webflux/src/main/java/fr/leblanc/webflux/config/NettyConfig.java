@@ -0,0 +1,60 @@
+package fr.leblanc.webflux.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.compression.Brotli;
+import reactor.netty.resources.LoopResources;
+
+@Configuration
+public class NettyConfig implements DisposableBean {
+
+	private final int eventLoopThreads;
+
+	private final boolean pooledAllocator;
+
+	private final int backlog;
+
+	private LoopResources loopResources;
+
+	public NettyConfig(@Value("${car.netty.event-loop-threads:0}") int eventLoopThreads,
+			@Value("${car.netty.pooled-allocator:true}") boolean pooledAllocator,
+			@Value("${car.netty.backlog:1024}") int backlog) {
+		this.eventLoopThreads = eventLoopThreads;
+		this.pooledAllocator = pooledAllocator;
+		this.backlog = backlog;
+	}
+
+	@Bean
+	public NettyServerCustomizer carNettyServerCustomizer() {
+		return httpServer -> {
+			// loads the Brotli native library on the startup thread instead of the event loop of the first compressed response
+			Brotli.isAvailable();
+			httpServer = httpServer
+					.option(ChannelOption.SO_BACKLOG, backlog)
+					.childOption(ChannelOption.TCP_NODELAY, true)
+					.childOption(ChannelOption.ALLOCATOR,
+							pooledAllocator ? PooledByteBufAllocator.DEFAULT : UnpooledByteBufAllocator.DEFAULT);
+			// 0 keeps Reactor Netty's shared event loops, one per core
+			if (eventLoopThreads > 0) {
+				loopResources = LoopResources.create("car-http", 1, eventLoopThreads, true);
+				httpServer = httpServer.runOn(loopResources);
+			}
+			return httpServer;
+		};
+	}
+
+	@Override
+	public void destroy() {
+		if (loopResources != null) {
+			loopResources.dispose();
+		}
+	}
+
+}
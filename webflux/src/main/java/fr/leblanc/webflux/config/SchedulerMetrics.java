@@ -0,0 +1,121 @@
+package fr.leblanc.webflux.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import fr.leblanc.webflux.controller.dto.SchedulerStatsDto;
+import reactor.core.Scannable;
+import reactor.core.scheduler.Schedulers;
+
+public class SchedulerMetrics implements AutoCloseable {
+
+	private static final String HOOK_KEY = "car-scheduler-metrics";
+
+	private static final double NANOS_PER_MILLI = 1_000_000d;
+
+	private final Map<String, Set<ScheduledExecutorService>> executors = new ConcurrentHashMap<>();
+
+	private final Map<String, TaskStats> tasks = new ConcurrentHashMap<>();
+
+	// only executors created after this point are seen, Reactor creates its schedulers on first use
+	public SchedulerMetrics(boolean enabled) {
+		if (!enabled) {
+			return;
+		}
+		Schedulers.addExecutorServiceDecorator(HOOK_KEY, (scheduler, executor) -> {
+			executors.computeIfAbsent(schedulerName(Scannable.from(scheduler).name()), name -> ConcurrentHashMap.newKeySet())
+					.add(executor);
+			return executor;
+		});
+		Schedulers.onScheduleHook(HOOK_KEY, this::timed);
+	}
+
+	public List<SchedulerStatsDto> getStats() {
+		return Stream.concat(executors.keySet().stream(), tasks.keySet().stream())
+				.distinct()
+				.sorted()
+				.map(scheduler -> tasks.getOrDefault(scheduler, TaskStats.NONE).toDto(scheduler, liveExecutors(scheduler)))
+				.toList();
+	}
+
+	@Override
+	public void close() {
+		Schedulers.removeExecutorServiceDecorator(HOOK_KEY);
+		Schedulers.resetOnScheduleHook(HOOK_KEY);
+	}
+
+	// the worker thread names the scheduler, the scheduling thread may belong to anything
+	private Runnable timed(Runnable task) {
+		long scheduledAt = System.nanoTime();
+		return () -> {
+			long startedAt = System.nanoTime();
+			try {
+				task.run();
+			} finally {
+				tasks.computeIfAbsent(schedulerName(Thread.currentThread().getName()), name -> new TaskStats())
+						.record(startedAt - scheduledAt, System.nanoTime() - startedAt);
+			}
+		};
+	}
+
+	private Set<ScheduledExecutorService> liveExecutors(String scheduler) {
+		Set<ScheduledExecutorService> live = executors.getOrDefault(scheduler, Collections.emptySet());
+		live.removeIf(ScheduledExecutorService::isShutdown);
+		return live;
+	}
+
+	// "boundedElastic(...)" and "boundedElastic-3" both map to "boundedElastic"
+	private static String schedulerName(String name) {
+		int end = name.indexOf('(');
+		if (end < 0) {
+			end = name.lastIndexOf('-');
+		}
+		return end > 0 ? name.substring(0, end) : name;
+	}
+
+	private static final class TaskStats {
+
+		private static final TaskStats NONE = new TaskStats();
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder queueNanos = new LongAdder();
+
+		private final LongAccumulator maxQueueNanos = new LongAccumulator(Math::max, 0);
+
+		private final LongAdder runNanos = new LongAdder();
+
+		void record(long queued, long run) {
+			count.increment();
+			queueNanos.add(queued);
+			maxQueueNanos.accumulate(queued);
+			runNanos.add(run);
+		}
+
+		SchedulerStatsDto toDto(String scheduler, Set<ScheduledExecutorService> executors) {
+			long queued = executors.stream()
+					.filter(ThreadPoolExecutor.class::isInstance)
+					.mapToLong(executor -> ((ThreadPoolExecutor) executor).getQueue().size())
+					.sum();
+			long completed = count.sum();
+			return new SchedulerStatsDto(scheduler, executors.size(), queued, completed,
+					averageMillis(queueNanos.sum(), completed),
+					maxQueueNanos.get() / NANOS_PER_MILLI,
+					averageMillis(runNanos.sum(), completed));
+		}
+
+		private static double averageMillis(long nanos, long count) {
+			return count == 0 ? 0 : nanos / NANOS_PER_MILLI / count;
+		}
+
+	}
+
+}
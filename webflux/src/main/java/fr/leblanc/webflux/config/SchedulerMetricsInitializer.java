@@ -0,0 +1,22 @@
+package fr.leblanc.webflux.config;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+
+// hooks Reactor before any bean can start a scheduler, executors created earlier would not be counted
+public class SchedulerMetricsInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+	@Override
+	public void initialize(ConfigurableApplicationContext context) {
+		boolean enabled = context.getEnvironment().getProperty("car.diagnostics.scheduler-metrics", Boolean.class, false);
+		SchedulerMetrics schedulerMetrics = new SchedulerMetrics(enabled);
+		context.getBeanFactory().registerSingleton("schedulerMetrics", schedulerMetrics);
+		context.addApplicationListener(event -> {
+			if (event instanceof ContextClosedEvent) {
+				schedulerMetrics.close();
+			}
+		});
+	}
+
+}
@@ -0,0 +1,40 @@
+package fr.leblanc.webflux.config;
+
+import java.lang.annotation.Annotation;
+import java.util.List;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Repository;
+import org.springframework.stereotype.Service;
+
+@Configuration
+public class StartupConfig {
+
+	private static final List<Class<? extends Annotation>> REQUEST_PATH_STEREOTYPES = List.of(Controller.class,
+			Service.class, Repository.class);
+
+	// controllers, services and repositories stay eager under lazy initialization, the first request needs them anyway
+	@Bean
+	public static LazyInitializationExcludeFilter requestPathBeansExcludeFilter() {
+		return (beanName, beanDefinition, beanType) -> beanType != null && REQUEST_PATH_STEREOTYPES.stream()
+				.anyMatch(stereotype -> AnnotatedElementUtils.hasAnnotation(beanType, stereotype));
+	}
+
+	// exits once started when dumping the class-data-sharing archive, checked at runtime so it survives AOT processing
+	@Bean
+	public ApplicationListener<ApplicationReadyEvent> trainingRunListener() {
+		return event -> {
+			if (event.getApplicationContext().getEnvironment().getProperty("startup.training-run", Boolean.class, false)) {
+				System.exit(SpringApplication.exit(event.getApplicationContext()));
+			}
+		};
+	}
+
+}
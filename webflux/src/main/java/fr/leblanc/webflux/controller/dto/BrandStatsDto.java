@@ -0,0 +1,5 @@
+package fr.leblanc.webflux.controller.dto;
+
+public record BrandStatsDto(String brand, long count, Double averageKilowatt) {
+
+}
@@ -1,5 +1,10 @@
 package fr.leblanc.webflux.controller.dto;
 
+import java.util.List;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -8,7 +13,12 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebInputException;
 
+import fr.leblanc.webflux.config.CodecConfig;
+import fr.leblanc.webflux.repository.CarCsv;
+import fr.leblanc.webflux.repository.VersionedCar;
 import fr.leblanc.webflux.service.CarService;
 import lombok.RequiredArgsConstructor;
 import reactor.core.publisher.Flux;
@@ -22,9 +32,15 @@ public class CarController {
 	private final CarService carService;
 	
 	@GetMapping("/{carId}")
-	public Mono<CarDto> getCar(@PathVariable Integer carId) {
+	public Mono<CarDto> getCar(@PathVariable Integer carId, ServerWebExchange exchange) {
 		
-		Mono<CarDto> carMono = carService.getCar(carId);
+		// the version lookup answers If-None-Match without reading the row, a changed row sends the tag it was read at
+		HttpHeaders headers = varyOnAccept(exchange);
+		Mono<CarDto> carMono = carService.getCarVersion(carId)
+				.flatMap(version -> exchange.checkNotModified(etag(carId + "-" + version)) ? Mono.empty()
+						: carService.getVersionedCar(carId)
+								.doOnNext(car -> headers.setETag(etag(carId + "-" + car.version())))
+								.map(VersionedCar::car));
 		
 		return carMono;
 	}
@@ -45,8 +61,46 @@ public class CarController {
 	 }
 	 
 	 @GetMapping("/all")
-	 public Flux<CarDto> getAllCars() {
-		 return carService.getAllCars();
+	 public Flux<CarDto> getAllCars(ServerWebExchange exchange) {
+		 varyOnAccept(exchange);
+		 return carService.getAllCars(version -> exchange.checkNotModified(etag("all-" + version)));
+	 }
+	 
+	 @GetMapping("/stats")
+	 public Mono<CarStatsDto> getCarStats() {
+		 return carService.getCarStats();
+	 }
+	 
+	 @GetMapping("/stats/brands")
+	 public Flux<BrandStatsDto> getBrandStats() {
+		 return carService.getBrandStats();
+	 }
+	 
+	 @PostMapping(value = "/import", consumes = CarCsv.TEXT_CSV_VALUE)
+	 public Mono<CarImportDto> importCars(@RequestBody Flux<DataBuffer> csv) {
+		 return carService.importCars(csv)
+				 .onErrorMap(IllegalArgumentException.class, e -> new ServerWebInputException(e.getMessage()));
+	 }
+	 
+	 @GetMapping(value = "/export", produces = CarCsv.TEXT_CSV_VALUE)
+	 public Flux<String> exportCars() {
+		 return carService.exportCars();
+	 }
+	 
+	 @GetMapping(value = "/changes", produces = { MediaType.TEXT_EVENT_STREAM_VALUE, CodecConfig.APPLICATION_STREAM_SMILE_VALUE })
+	 public Flux<CarEventDto> getCarChanges() {
+		 return carService.getCarChanges();
+	 }
+	 
+	 // weak: JSON, NDJSON and Smile bodies of one version are equivalent, not byte-identical
+	 private static String etag(String version) {
+		 return "W/\"" + version + "\"";
+	 }
+	 
+	 private static HttpHeaders varyOnAccept(ServerWebExchange exchange) {
+		 HttpHeaders headers = exchange.getResponse().getHeaders();
+		 headers.setVary(List.of(HttpHeaders.ACCEPT));
+		 return headers;
 	 }
 	
 }
@@ -0,0 +1,5 @@
+package fr.leblanc.webflux.controller.dto;
+
+public record CarEventDto(CarEventType type, Integer carId, CarDto car) {
+
+}
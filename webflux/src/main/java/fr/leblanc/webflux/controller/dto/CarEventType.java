@@ -0,0 +1,7 @@
+package fr.leblanc.webflux.controller.dto;
+
+public enum CarEventType {
+	CREATED,
+	UPDATED,
+	DELETED
+}
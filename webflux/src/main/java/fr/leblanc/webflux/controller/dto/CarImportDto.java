@@ -0,0 +1,5 @@
+package fr.leblanc.webflux.controller.dto;
+
+public record CarImportDto(long imported) {
+
+}
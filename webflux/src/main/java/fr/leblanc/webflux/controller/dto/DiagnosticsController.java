@@ -0,0 +1,23 @@
+package fr.leblanc.webflux.controller.dto;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import fr.leblanc.webflux.config.SchedulerMetrics;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+
+@RestController
+@RequestMapping("/diagnostics")
+@RequiredArgsConstructor
+public class DiagnosticsController {
+
+	private final SchedulerMetrics schedulerMetrics;
+
+	@GetMapping("/schedulers")
+	public Flux<SchedulerStatsDto> getSchedulerStats() {
+		return Flux.fromIterable(schedulerMetrics.getStats());
+	}
+
+}
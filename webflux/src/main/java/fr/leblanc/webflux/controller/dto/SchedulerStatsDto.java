@@ -0,0 +1,6 @@
+package fr.leblanc.webflux.controller.dto;
+
+public record SchedulerStatsDto(String scheduler, int executors, long queuedTasks, long completedTasks,
+		double averageQueueMillis, double maxQueueMillis, double averageRunMillis) {
+
+}
@@ -0,0 +1,106 @@
+package fr.leblanc.webflux.repository;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class CarCopyRepository {
+
+	private static final String COPY_CARS = "copy car (brand, kilowatt) from stdin with (format csv)";
+
+	// lines per CopyData message
+	private static final int COPY_CHUNK_SIZE = 1_000;
+
+	// rows per multi-row insert, two bind parameters each
+	private static final int INSERT_BATCH_SIZE = 500;
+
+	// rows per round-trip, Postgres keeps the rest behind a portal instead of sending the whole table
+	private static final int EXPORT_FETCH_SIZE = 1_000;
+
+	private final ConnectionFactory connectionFactory;
+
+	private final DatabaseClient databaseClient;
+
+	private final TransactionalOperator transactionalOperator;
+
+	public Mono<Long> importCars(Flux<CarDto> cars) {
+		if ("PostgreSQL".equals(connectionFactory.getMetadata().getName())) {
+			return copyIn(cars);
+		}
+		return insertBatches(cars);
+	}
+
+	// not a COPY: r2dbc-postgresql has COPY FROM STDIN only, so the export streams a select through a portal
+	public Flux<CarDto> exportCars() {
+		return databaseClient.sql("select id, brand, kilowatt from car order by id")
+				.filter(statement -> statement.fetchSize(EXPORT_FETCH_SIZE))
+				.map(CarQueryRepository.CAR_MAPPER)
+				.all();
+	}
+
+	// COPY ... FROM STDIN streams the request body to the server, requesting more lines as the connection writes them
+	private Mono<Long> copyIn(Flux<CarDto> cars) {
+		Flux<ByteBuf> chunks = cars.map(CarCsv::formatValues)
+				.buffer(COPY_CHUNK_SIZE)
+				.map(lines -> {
+					StringBuilder chunk = new StringBuilder(lines.size() * 32);
+					lines.forEach(line -> chunk.append(line).append('\n'));
+					return ByteBufUtil.writeUtf8(ByteBufAllocator.DEFAULT, chunk);
+				})
+				.doOnDiscard(ByteBuf.class, ByteBuf::release);
+		return Mono.usingWhen(Mono.from(connectionFactory.create()),
+				connection -> postgresqlConnection(connection).copyIn(COPY_CARS, chunks),
+				Connection::close);
+	}
+
+	// databases without COPY get multi-row inserts, in one transaction like COPY
+	private Mono<Long> insertBatches(Flux<CarDto> cars) {
+		return cars.buffer(INSERT_BATCH_SIZE)
+				.concatMap(this::insert)
+				.reduce(0L, Long::sum)
+				.as(transactionalOperator::transactional);
+	}
+
+	private Mono<Long> insert(List<CarDto> cars) {
+		StringJoiner values = new StringJoiner(", ");
+		for (int i = 0; i < cars.size(); i++) {
+			values.add("(:brand" + i + ", :kilowatt" + i + ")");
+		}
+		GenericExecuteSpec insert = databaseClient.sql("insert into car (brand, kilowatt) values " + values);
+		for (int i = 0; i < cars.size(); i++) {
+			CarDto car = cars.get(i);
+			insert = car.brand() == null ? insert.bindNull("brand" + i, String.class) : insert.bind("brand" + i, car.brand());
+			insert = car.kilowatt() == null ? insert.bindNull("kilowatt" + i, Integer.class)
+					: insert.bind("kilowatt" + i, car.kilowatt());
+		}
+		return insert.fetch().rowsUpdated();
+	}
+
+	// the pool hands out wrapped connections
+	private static PostgresqlConnection postgresqlConnection(Connection connection) {
+		Object unwrapped = connection;
+		while (!(unwrapped instanceof PostgresqlConnection) && unwrapped instanceof Wrapped<?> wrapped) {
+			unwrapped = wrapped.unwrap();
+		}
+		return (PostgresqlConnection) unwrapped;
+	}
+
+}
@@ -0,0 +1,183 @@
+package fr.leblanc.webflux.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+
+// one car per line, Postgres COPY csv conventions: an unquoted empty field is null, a quoted one an empty string
+public final class CarCsv {
+
+	public static final String TEXT_CSV_VALUE = "text/csv";
+
+	public static final String HEADER = "id,brand,kilowatt";
+
+	private CarCsv() {
+	}
+
+	public record Columns(int brand, int kilowatt) {
+	}
+
+	// splits a UTF-8 body into records as its buffers arrive: a line break inside a quoted field stays in the field,
+	// a character split across buffers is decoded once the rest of it arrives
+	public static final class Records {
+
+		private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+				.onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+
+		private final StringBuilder record = new StringBuilder();
+
+		private ByteBuffer carry = ByteBuffer.allocate(0);
+
+		private CharBuffer chars = CharBuffer.allocate(0);
+
+		private boolean inQuotes;
+
+		public void feed(ByteBuffer bytes, List<String> records) {
+			ByteBuffer input = bytes;
+			if (carry.hasRemaining()) {
+				input = ByteBuffer.allocate(carry.remaining() + bytes.remaining()).put(carry).put(bytes).flip();
+			}
+			int capacity = (int) (input.remaining() * (double) decoder.maxCharsPerByte());
+			if (chars.capacity() < capacity) {
+				chars = CharBuffer.allocate(capacity);
+			}
+			chars.clear();
+			CoderResult result = decoder.decode(input, chars, false);
+			if (result.isError()) {
+				throw new IllegalArgumentException("CSV body is not valid UTF-8");
+			}
+			// at most the first bytes of one character are left
+			carry = ByteBuffer.allocate(input.remaining()).put(input).flip();
+			split(chars.flip(), records);
+		}
+
+		public void finish(List<String> records) {
+			if (carry.hasRemaining()) {
+				throw new IllegalArgumentException("CSV body ends inside a UTF-8 character");
+			}
+			if (inQuotes) {
+				throw new IllegalArgumentException("Unterminated quoted CSV field: " + record);
+			}
+			if (!record.isEmpty()) {
+				records.add(record(record.length()));
+			}
+		}
+
+		private void split(CharBuffer input, List<String> records) {
+			char[] array = input.array();
+			int start = 0;
+			for (int i = 0; i < input.limit(); i++) {
+				char c = array[i];
+				// an escaped quote toggles twice
+				if (c == '"') {
+					inQuotes = !inQuotes;
+				} else if (c == '\n' && !inQuotes) {
+					record.append(array, start, i - start);
+					int end = record.length();
+					records.add(record(end > 0 && record.charAt(end - 1) == '\r' ? end - 1 : end));
+					start = i + 1;
+				}
+			}
+			record.append(array, start, input.limit() - start);
+		}
+
+		private String record(int end) {
+			String value = record.substring(0, end);
+			record.setLength(0);
+			return value;
+		}
+
+	}
+
+	public static Columns columns(String header) {
+		List<String> names = fields(header).stream()
+				.map(name -> name == null ? "" : name.trim().toLowerCase(Locale.ROOT))
+				.toList();
+		int brand = names.indexOf("brand");
+		int kilowatt = names.indexOf("kilowatt");
+		if (brand < 0 || kilowatt < 0) {
+			throw new IllegalArgumentException("CSV header must name the brand and kilowatt columns: " + header);
+		}
+		return new Columns(brand, kilowatt);
+	}
+
+	public static CarDto parse(Columns columns, String line) {
+		List<String> fields = fields(line);
+		if (fields.size() <= Math.max(columns.brand(), columns.kilowatt())) {
+			throw new IllegalArgumentException("Missing CSV columns: " + line);
+		}
+		String kilowatt = fields.get(columns.kilowatt());
+		try {
+			return new CarDto(null, fields.get(columns.brand()), kilowatt == null ? null : Integer.valueOf(kilowatt.trim()));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid kilowatt value: " + line, e);
+		}
+	}
+
+	public static String format(CarDto car) {
+		return car.id() + "," + value(car.brand()) + "," + value(car.kilowatt());
+	}
+
+	// the brand and kilowatt columns only, as fed to COPY
+	public static String formatValues(CarDto car) {
+		return value(car.brand()) + "," + value(car.kilowatt());
+	}
+
+	private static String value(Integer value) {
+		return value == null ? "" : value.toString();
+	}
+
+	private static String value(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.isEmpty() || value.startsWith("\\") || value.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+		return value;
+	}
+
+	private static List<String> fields(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean inQuotes = false;
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (inQuotes) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					inQuotes = false;
+				}
+			} else if (c == '"') {
+				inQuotes = true;
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.isEmpty() && !quoted ? null : field.toString());
+				field.setLength(0);
+				quoted = false;
+			} else {
+				field.append(c);
+			}
+		}
+		if (inQuotes) {
+			throw new IllegalArgumentException("Unterminated quoted CSV field: " + line);
+		}
+		fields.add(field.isEmpty() && !quoted ? null : field.toString());
+		return fields;
+	}
+
+}
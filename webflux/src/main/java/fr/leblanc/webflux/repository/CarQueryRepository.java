@@ -0,0 +1,119 @@
+package fr.leblanc.webflux.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+@RequiredArgsConstructor
+public class CarQueryRepository {
+
+	private static final String SELECT_CARS = "select id, brand, kilowatt from car";
+
+	// columns are read by index in the order of SELECT_CARS, no entity or reflective mapping in between
+	public static final BiFunction<Row, RowMetadata, CarDto> CAR_MAPPER = (row, metadata) -> new CarDto(
+			row.get(0, Integer.class),
+			row.get(1, String.class),
+			row.get(2, Integer.class));
+
+	// the row and the version it was read at, for an ETag that matches the body sent
+	private static final String SELECT_VERSIONED_CARS = "select id, brand, kilowatt, version from car";
+
+	private static final BiFunction<Row, RowMetadata, VersionedCar> VERSIONED_CAR_MAPPER = (row, metadata) -> new VersionedCar(
+			CAR_MAPPER.apply(row, metadata),
+			row.get(3, Integer.class));
+
+	// sums rather than avg(): the average type of an integer column differs between databases
+	private static final String SELECT_TOTALS = "select count(*), count(kilowatt), coalesce(sum(kilowatt), 0) from car";
+
+	private static final String SELECT_TOTALS_BY_BRAND = "select coalesce(brand, ''), count(*), count(kilowatt), coalesce(sum(kilowatt), 0) from car group by coalesce(brand, '') order by 1";
+
+	// changes on every insert (max id), delete (count) and update (version sum) without reading the rows
+	private static final String SELECT_COLLECTION_VERSION = "select count(*), coalesce(max(id), 0), coalesce(sum(version), 0) from car";
+
+	private final DatabaseClient databaseClient;
+
+	public Mono<CarDto> findById(Integer carId) {
+		return databaseClient.sql(SELECT_CARS + " where id = :id")
+				.bind("id", carId)
+				.map(CAR_MAPPER)
+				.one();
+	}
+
+	public Flux<CarDto> findAllById(Collection<Integer> carIds) {
+		return databaseClient.sql(SELECT_CARS + " where id in (:ids)")
+				.bind("ids", carIds)
+				.map(CAR_MAPPER)
+				.all();
+	}
+
+	public Mono<VersionedCar> findVersionedById(Integer carId) {
+		return databaseClient.sql(SELECT_VERSIONED_CARS + " where id = :id")
+				.bind("id", carId)
+				.map(VERSIONED_CAR_MAPPER)
+				.one();
+	}
+
+	public Flux<VersionedCar> findAllVersionedById(Collection<Integer> carIds) {
+		return databaseClient.sql(SELECT_VERSIONED_CARS + " where id in (:ids)")
+				.bind("ids", carIds)
+				.map(VERSIONED_CAR_MAPPER)
+				.all();
+	}
+
+	public Flux<CarDto> findAll() {
+		return databaseClient.sql(SELECT_CARS)
+				.map(CAR_MAPPER)
+				.all();
+	}
+
+	public Mono<Integer> findVersion(Integer carId) {
+		return databaseClient.sql("select version from car where id = :id")
+				.bind("id", carId)
+				.map(row -> row.get(0, Integer.class))
+				.one();
+	}
+
+	public Mono<Map<Integer, Integer>> findVersions(Collection<Integer> carIds) {
+		return databaseClient.sql("select id, version from car where id in (:ids)")
+				.bind("ids", carIds)
+				.map(row -> Map.entry(row.get(0, Integer.class), row.get(1, Integer.class)))
+				.all()
+				.collectMap(Map.Entry::getKey, Map.Entry::getValue);
+	}
+
+	public Mono<String> getCollectionVersion() {
+		return databaseClient.sql(SELECT_COLLECTION_VERSION)
+				.map(row -> row.get(0, Long.class) + "-" + row.get(1, Integer.class) + "-" + row.get(2, Long.class))
+				.one();
+	}
+
+	public Mono<CarTotals> getTotals() {
+		return databaseClient.sql(SELECT_TOTALS)
+				.map(row -> new CarTotals(null,
+						row.get(0, Long.class),
+						row.get(1, Long.class),
+						row.get(2, Long.class)))
+				.one();
+	}
+
+	public Flux<CarTotals> getTotalsByBrand() {
+		return databaseClient.sql(SELECT_TOTALS_BY_BRAND)
+				.map(row -> new CarTotals(row.get(0, String.class),
+						row.get(1, Long.class),
+						row.get(2, Long.class),
+						row.get(3, Long.class)))
+				.all();
+	}
+
+}
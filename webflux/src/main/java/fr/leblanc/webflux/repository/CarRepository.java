@@ -1,9 +1,16 @@
 package fr.leblanc.webflux.repository;
 
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.r2dbc.repository.R2dbcRepository;
 
 import fr.leblanc.webflux.repository.entity.CarEntity;
+import reactor.core.publisher.Mono;
 
 public interface CarRepository extends R2dbcRepository<CarEntity, Integer> {
 
+	@Modifying
+	@Query("update car set brand = :brand, kilowatt = :kilowatt, version = version + 1 where id = :id")
+	Mono<Integer> update(Integer id, String brand, Integer kilowatt);
+	
 }
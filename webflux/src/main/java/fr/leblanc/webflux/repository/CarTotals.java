@@ -0,0 +1,9 @@
+package fr.leblanc.webflux.repository;
+
+public record CarTotals(String brand, long count, long kilowattCount, long kilowattSum) {
+
+	public Double averageKilowatt() {
+		return kilowattCount == 0 ? null : (double) kilowattSum / kilowattCount;
+	}
+
+}
@@ -0,0 +1,7 @@
+package fr.leblanc.webflux.repository;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+
+public record VersionedCar(CarDto car, int version) {
+
+}
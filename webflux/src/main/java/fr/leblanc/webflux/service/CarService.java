@@ -1,8 +1,16 @@
 package fr.leblanc.webflux.service;
 
+import java.util.function.Predicate;
+
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 
+import fr.leblanc.webflux.controller.dto.BrandStatsDto;
 import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.CarEventDto;
+import fr.leblanc.webflux.controller.dto.CarImportDto;
+import fr.leblanc.webflux.controller.dto.CarStatsDto;
+import fr.leblanc.webflux.repository.VersionedCar;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -11,6 +19,10 @@ public interface CarService {
 
 	Mono<CarDto> getCar(Integer id);
 	
+	Mono<VersionedCar> getVersionedCar(Integer id);
+	
+	Mono<Integer> getCarVersion(Integer id);
+	
 	Mono<CarDto> createCar(CarDto carDto);
 	
 	Mono<CarDto> updateCar(Integer carId, CarDto carDto);
@@ -18,5 +30,18 @@ public interface CarService {
 	Mono<Void> deleteCar(Integer carId);
 
 	Flux<CarDto> getAllCars();
+	
+	// empty when notModified accepts the collection version, read in the same snapshot as the cars
+	Flux<CarDto> getAllCars(Predicate<String> notModified);
+	
+	Flux<CarEventDto> getCarChanges();
+	
+	Mono<CarStatsDto> getCarStats();
+	
+	Flux<BrandStatsDto> getBrandStats();
+	
+	Mono<CarImportDto> importCars(Flux<DataBuffer> csv);
+	
+	Flux<String> exportCars();
 		
 }
@@ -0,0 +1,120 @@
+package fr.leblanc.webflux.service.impl;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+// merges the keys requested within a window into one lookup, concurrent requests for a key share its result
+final class BatchLoader<K, V> implements Disposable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchLoader.class);
+
+	private final Function<Set<K>, Mono<Map<K, V>>> loader;
+
+	private final Duration timeout;
+
+	private final Scheduler scheduler;
+
+	private final Map<K, Sinks.One<V>> pending = new ConcurrentHashMap<>();
+
+	private final Disposable batches;
+
+	// Flux.create serializes next() from any thread through a queue, event loops never spin on a contended emission
+	private volatile FluxSink<K> keys;
+
+	// the window timer fires on the scheduler and every batch lookup is subscribed on it
+	BatchLoader(Function<Set<K>, Mono<Map<K, V>>> loader, Duration window, int maxBatchSize, Duration timeout,
+			Scheduler scheduler) {
+		this.loader = loader;
+		this.timeout = timeout;
+		this.scheduler = scheduler;
+		this.batches = Flux.<K>create(sink -> keys = sink)
+				.bufferTimeout(maxBatchSize, window, scheduler, true)
+				.flatMap(this::loadBatch)
+				// the keys buffered when the pipeline broke are lost, their requests fail and a new pipeline takes over
+				.doOnError(error -> {
+					logger.error("Batch pipeline failed, resubscribing", error);
+					pending.keySet().forEach(key -> fail(key, pending.get(key), error));
+				})
+				.retry()
+				.subscribe();
+	}
+
+	Mono<V> load(K key) {
+		return Mono.defer(() -> {
+			Sinks.One<V> result = Sinks.one();
+			Sinks.One<V> inFlight = pending.putIfAbsent(key, result);
+			if (inFlight != null) {
+				return inFlight.asMono();
+			}
+			FluxSink<K> sink = keys;
+			sink.next(key);
+			if (sink.isCancelled()) {
+				fail(key, result, new IllegalStateException("Batch loader is not running"));
+			}
+			// a key the pipeline never answers must not keep later requests waiting on it
+			return result.asMono()
+					.timeout(timeout)
+					.doOnError(TimeoutException.class, e -> fail(key, result, e));
+		});
+	}
+
+	@Override
+	public void dispose() {
+		batches.dispose();
+	}
+
+	@Override
+	public boolean isDisposed() {
+		return batches.isDisposed();
+	}
+
+	private Mono<Void> loadBatch(List<K> batch) {
+		Set<K> batchKeys = new LinkedHashSet<>(batch);
+		return Mono.defer(() -> loader.apply(batchKeys))
+				.subscribeOn(scheduler)
+				.timeout(timeout)
+				.defaultIfEmpty(Map.of())
+				.doOnNext(values -> batchKeys.forEach(key -> {
+					// removed before completing so requests arriving from now on read again
+					Sinks.One<V> result = pending.remove(key);
+					if (result == null) {
+						return;
+					}
+					V value = values.get(key);
+					if (value == null) {
+						result.tryEmitEmpty();
+					} else {
+						result.tryEmitValue(value);
+					}
+				}))
+				// a failed batch fails its requests only, the batching pipeline keeps running
+				.onErrorResume(error -> {
+					batchKeys.forEach(key -> fail(key, pending.get(key), error));
+					return Mono.empty();
+				})
+				.then();
+	}
+
+	private void fail(K key, Sinks.One<V> result, Throwable error) {
+		if (result != null && pending.remove(key, result)) {
+			result.tryEmitError(error);
+		}
+	}
+
+}
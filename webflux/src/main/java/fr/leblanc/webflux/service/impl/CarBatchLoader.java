@@ -0,0 +1,62 @@
+package fr.leblanc.webflux.service.impl;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.repository.CarQueryRepository;
+import fr.leblanc.webflux.repository.VersionedCar;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+public class CarBatchLoader implements DisposableBean {
+
+	private final boolean enabled;
+
+	private final BatchLoader<Integer, VersionedCar> cars;
+
+	private final BatchLoader<Integer, Integer> versions;
+
+	// a car read by many clients at once costs one "where id in (...)" query per window instead of one query per request.
+	// Opt-in: every request waits for the window, twice for a conditional GET that reads the version then the car.
+	// Batches are flushed and queried from boundedElastic, never from a parallel worker: a driver that blocks, like
+	// the synchronous H2 one, then blocks a thread that is allowed to.
+	public CarBatchLoader(CarQueryRepository carQueryRepository,
+			@Value("${car.batch.enabled:false}") boolean enabled,
+			@Value("${car.batch.window:2ms}") Duration window,
+			@Value("${car.batch.max-size:256}") int maxSize,
+			@Value("${car.batch.timeout:5s}") Duration timeout) {
+		this.enabled = enabled;
+		this.cars = new BatchLoader<>(carIds -> carQueryRepository.findAllVersionedById(carIds)
+				.collectMap(car -> car.car().id()), window, maxSize, timeout, Schedulers.boundedElastic());
+		this.versions = new BatchLoader<>(carQueryRepository::findVersions, window, maxSize, timeout,
+				Schedulers.boundedElastic());
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public Mono<CarDto> findById(Integer carId) {
+		return cars.load(carId).map(VersionedCar::car);
+	}
+
+	public Mono<VersionedCar> findVersionedById(Integer carId) {
+		return cars.load(carId);
+	}
+
+	public Mono<Integer> findVersion(Integer carId) {
+		return versions.load(carId);
+	}
+
+	@Override
+	public void destroy() {
+		cars.dispose();
+		versions.dispose();
+	}
+
+}
@@ -0,0 +1,67 @@
+package fr.leblanc.webflux.service.impl;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.CarEventDto;
+import fr.leblanc.webflux.controller.dto.CarEventType;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+@Component
+public class CarChangeFeed {
+
+	private static final Logger logger = LoggerFactory.getLogger(CarChangeFeed.class);
+
+	// emitted to by one thread at a time, see publish
+	private final Sinks.Many<CarEventDto> sink;
+
+	private final Queue<CarEventDto> pending = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger emitting = new AtomicInteger();
+
+	private final int subscriberBuffer;
+
+	public CarChangeFeed(@Value("${car.changes.replay-size:256}") int replaySize,
+			@Value("${car.changes.subscriber-buffer:1024}") int subscriberBuffer) {
+		this.sink = Sinks.unsafe().many().replay().limit(replaySize);
+		this.subscriberBuffer = subscriberBuffer;
+	}
+
+	public void publish(CarEventType type, Integer carId, CarDto car) {
+		pending.offer(new CarEventDto(type, carId, car));
+		// mutations complete on different event-loop threads: the one that finds no emission in progress emits
+		// the events queued by all of them, the others return at once instead of spinning
+		if (emitting.getAndIncrement() != 0) {
+			return;
+		}
+		int missed = 1;
+		do {
+			CarEventDto event;
+			while ((event = pending.poll()) != null) {
+				Sinks.EmitResult result = sink.tryEmitNext(event);
+				if (result.isFailure()) {
+					logger.warn("Car event not published ({}): {}", result, event);
+				}
+			}
+			missed = emitting.addAndGet(-missed);
+		} while (missed != 0);
+	}
+
+	public Flux<CarEventDto> changes() {
+		// replay the last events to late subscribers, then drop the oldest ones for subscribers that cannot keep up
+		return sink.asFlux()
+				.onBackpressureBuffer(subscriberBuffer,
+						dropped -> logger.debug("Dropped car event for slow subscriber: {}", dropped),
+						BufferOverflowStrategy.DROP_OLDEST);
+	}
+
+}
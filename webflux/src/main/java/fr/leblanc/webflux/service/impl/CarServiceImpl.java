@@ -1,9 +1,29 @@
 package fr.leblanc.webflux.service.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
+import fr.leblanc.webflux.controller.dto.BrandStatsDto;
 import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.CarEventDto;
+import fr.leblanc.webflux.controller.dto.CarEventType;
+import fr.leblanc.webflux.controller.dto.CarImportDto;
+import fr.leblanc.webflux.controller.dto.CarStatsDto;
+import fr.leblanc.webflux.repository.CarCopyRepository;
+import fr.leblanc.webflux.repository.CarCsv;
+import fr.leblanc.webflux.repository.CarQueryRepository;
 import fr.leblanc.webflux.repository.CarRepository;
+import fr.leblanc.webflux.repository.VersionedCar;
 import fr.leblanc.webflux.repository.entity.CarEntity;
 import fr.leblanc.webflux.service.CarService;
 import lombok.RequiredArgsConstructor;
@@ -14,12 +34,48 @@ import reactor.core.publisher.Mono;
 @Service
 public class CarServiceImpl implements CarService {
 
+	private static final CarDto UNKNOWN_CAR = new CarDto(null, null, null);
+
+	private static final int EXPORT_LINES_PER_CHUNK = 1_000;
+
+	private static final TransactionDefinition SNAPSHOT_READ = snapshotRead();
+
 	private final CarRepository carRepository;
 	
+	private final CarQueryRepository carQueryRepository;
+	
+	private final CarChangeFeed carChangeFeed;
+	
+	private final CarStatsSummary carStatsSummary;
+	
+	private final CarBatchLoader carBatchLoader;
+	
+	private final CarCopyRepository carCopyRepository;
+	
+	private final ReactiveTransactionManager transactionManager;
+	
 	@Override
 	public Mono<CarDto> getCar(Integer carId) {
-		return carRepository.findById(carId)
-				.map(carEntity -> new CarDto(carEntity.getId(), Thread.currentThread().getName(), carEntity.getKilowatt()));
+		if (carBatchLoader.isEnabled()) {
+			return carBatchLoader.findById(carId);
+		}
+		return carQueryRepository.findById(carId);
+	}
+
+	@Override
+	public Mono<VersionedCar> getVersionedCar(Integer carId) {
+		if (carBatchLoader.isEnabled()) {
+			return carBatchLoader.findVersionedById(carId);
+		}
+		return carQueryRepository.findVersionedById(carId);
+	}
+
+	@Override
+	public Mono<Integer> getCarVersion(Integer carId) {
+		if (carBatchLoader.isEnabled()) {
+			return carBatchLoader.findVersion(carId);
+		}
+		return carQueryRepository.findVersion(carId);
 	}
 
 	@Override
@@ -28,30 +84,132 @@ public class CarServiceImpl implements CarService {
 				.brand(carDto.brand())
 				.kilowatt(carDto.kilowatt())
 				.build())
-				.map(carEntity -> new CarDto(carEntity.getId(), carEntity.getBrand(), carEntity.getKilowatt()));
+				.map(carEntity -> new CarDto(carEntity.getId(), carEntity.getBrand(), carEntity.getKilowatt()))
+				.doOnNext(car -> {
+					carStatsSummary.add(car);
+					carChangeFeed.publish(CarEventType.CREATED, car.id(), car);
+				});
 	}
 
 	@Override
 	public Mono<CarDto> updateCar(Integer carId, CarDto carDto) {
-		return carRepository.save(CarEntity.builder()
-				.id(carId)
-				.brand(carDto.brand())
-				.kilowatt(carDto.kilowatt())
-				.build())
-				.map(carEntity -> new CarDto(carEntity.getId(), carEntity.getBrand(), carEntity.getKilowatt()));
+		return previousCar(carId)
+				.flatMap(previous -> carRepository.update(carId, carDto.brand(), carDto.kilowatt())
+						.flatMap(updated -> updated == 0
+								? Mono.<CarDto>error(new TransientDataAccessResourceException(
+										"Failed to update table [car]; Row with Id [" + carId + "] does not exist"))
+								: Mono.just(new CarDto(carId, carDto.brand(), carDto.kilowatt())))
+						.doOnNext(car -> {
+							carStatsSummary.replace(previous, car);
+							carChangeFeed.publish(CarEventType.UPDATED, car.id(), car);
+						}));
 	}
 
 	@Override
 	public Mono<Void> deleteCar(Integer carId) {
-		return carRepository.deleteById(carId);
+		return previousCar(carId)
+				.flatMap(previous -> carRepository.deleteById(carId)
+						.doOnSuccess(unused -> {
+							carStatsSummary.remove(previous);
+							carChangeFeed.publish(CarEventType.DELETED, carId, null);
+						}));
 	}
 
 	@Override
 	public Flux<CarDto> getAllCars() {
-		return carRepository.findAll().map(carEntity -> {
-			return new CarDto(carEntity.getId(), Thread.currentThread().getName(), carEntity.getKilowatt());
-		}).log();
+		return carQueryRepository.findAll();
+	}
+
+	// one repeatable read transaction, so rows changed after the version query are not sent under that version
+	@Override
+	public Flux<CarDto> getAllCars(Predicate<String> notModified) {
+		return carQueryRepository.getCollectionVersion()
+				.flatMapMany(version -> notModified.test(version) ? Flux.empty() : carQueryRepository.findAll())
+				.as(TransactionalOperator.create(transactionManager, SNAPSHOT_READ)::transactional);
+	}
+
+	@Override
+	public Flux<CarEventDto> getCarChanges() {
+		return carChangeFeed.changes();
+	}
+
+	@Override
+	public Mono<CarStatsDto> getCarStats() {
+		if (carStatsSummary.isLoaded()) {
+			return Mono.just(carStatsSummary.getStats());
+		}
+		return carQueryRepository.getTotals()
+				.map(totals -> new CarStatsDto(totals.count(), totals.averageKilowatt()));
+	}
+
+	@Override
+	public Flux<BrandStatsDto> getBrandStats() {
+		if (carStatsSummary.isLoaded()) {
+			return Flux.fromIterable(carStatsSummary.getBrandStats());
+		}
+		return carQueryRepository.getTotalsByBrand()
+				.map(totals -> new BrandStatsDto(totals.brand(), totals.count(), totals.averageKilowatt()));
+	}
+
+	// bulk imports publish no change events and reload the in-memory summary once done
+	@Override
+	public Mono<CarImportDto> importCars(Flux<DataBuffer> csv) {
+		Flux<CarDto> cars = csvRecords(csv).filter(line -> !line.isBlank())
+				.<CarDto>switchOnFirst((header, lines) -> {
+					if (!header.hasValue()) {
+						return lines.then(Mono.empty());
+					}
+					CarCsv.Columns columns = CarCsv.columns(header.get());
+					return lines.skip(1).map(line -> CarCsv.parse(columns, line));
+				});
+		return carCopyRepository.importCars(cars)
+				.flatMap(imported -> carStatsSummary.reload().thenReturn(new CarImportDto(imported)));
+	}
+
+	@Override
+	public Flux<String> exportCars() {
+		return carCopyRepository.exportCars()
+				.map(CarCsv::format)
+				.startWith(CarCsv.HEADER)
+				.buffer(EXPORT_LINES_PER_CHUNK)
+				.map(lines -> String.join("\n", lines) + "\n");
+	}
+
+	// records are split on the raw bytes, a quoted brand may hold line breaks
+	private static Flux<String> csvRecords(Flux<DataBuffer> csv) {
+		return Flux.defer(() -> {
+			CarCsv.Records splitter = new CarCsv.Records();
+			return csv.concatMapIterable(buffer -> {
+				List<String> records = new ArrayList<>();
+				try (DataBuffer.ByteBufferIterator byteBuffers = buffer.readableByteBuffers()) {
+					byteBuffers.forEachRemaining(byteBuffer -> splitter.feed(byteBuffer, records));
+				} finally {
+					DataBufferUtils.release(buffer);
+				}
+				return records;
+			})
+					.doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+					.concatWith(Flux.defer(() -> {
+						List<String> records = new ArrayList<>();
+						splitter.finish(records);
+						return Flux.fromIterable(records);
+					}));
+		});
+	}
+
+	// the in-memory summary needs the values being replaced, other setups skip the extra read
+	private Mono<CarDto> previousCar(Integer carId) {
+		if (!carStatsSummary.isEnabled()) {
+			return Mono.just(UNKNOWN_CAR);
+		}
+		return carQueryRepository.findById(carId).defaultIfEmpty(UNKNOWN_CAR);
+	}
 
+	private static TransactionDefinition snapshotRead() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		definition.setReadOnly(true);
+		return definition;
 	}
 
 }
@@ -0,0 +1,167 @@
+package fr.leblanc.webflux.service.impl;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import fr.leblanc.webflux.controller.dto.BrandStatsDto;
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.CarStatsDto;
+import fr.leblanc.webflux.repository.CarQueryRepository;
+import fr.leblanc.webflux.repository.CarTotals;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Component
+public class CarStatsSummary {
+
+	private static final Logger logger = LoggerFactory.getLogger(CarStatsSummary.class);
+
+	private final CarQueryRepository carQueryRepository;
+
+	private final boolean enabled;
+
+	private final Duration refreshInterval;
+
+	private volatile Totals totals;
+
+	private Disposable refresh;
+
+	public CarStatsSummary(CarQueryRepository carQueryRepository,
+			@Value("${car.stats.in-memory.enabled:false}") boolean enabled,
+			@Value("${car.stats.in-memory.refresh-interval:1m}") Duration refreshInterval) {
+		this.carQueryRepository = carQueryRepository;
+		this.enabled = enabled;
+		this.refreshInterval = refreshInterval;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public boolean isLoaded() {
+		return totals != null;
+	}
+
+	@EventListener(ApplicationStartedEvent.class)
+	public void start() {
+		if (!enabled) {
+			return;
+		}
+		// the periodic reload corrects the drift left by concurrent writes to the same car and by writes racing a
+		// reload, 0s loads once and never corrects it
+		refresh = refreshInterval.isZero() ? reload().subscribe()
+				: Flux.interval(Duration.ZERO, refreshInterval).concatMap(tick -> reload()).subscribe();
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (refresh != null) {
+			refresh.dispose();
+		}
+	}
+
+	public Mono<Void> reload() {
+		if (!enabled) {
+			return Mono.empty();
+		}
+		return carQueryRepository.getTotalsByBrand()
+				.collectList()
+				.doOnNext(brands -> totals = new Totals(brands))
+				.doOnError(e -> logger.error("Unable to load car statistics", e))
+				.onErrorResume(e -> Mono.empty())
+				.then();
+	}
+
+	public void add(CarDto car) {
+		Totals current = totals;
+		if (current != null && car.id() != null) {
+			current.add(car, 1);
+		}
+	}
+
+	public void remove(CarDto car) {
+		Totals current = totals;
+		if (current != null && car.id() != null) {
+			current.add(car, -1);
+		}
+	}
+
+	public void replace(CarDto previous, CarDto car) {
+		remove(previous);
+		add(car);
+	}
+
+	public CarStatsDto getStats() {
+		Totals current = totals;
+		return new CarStatsDto(current.all.count.sum(), current.all.averageKilowatt());
+	}
+
+	public List<BrandStatsDto> getBrandStats() {
+		return totals.brands.entrySet().stream()
+				.map(entry -> new BrandStatsDto(entry.getKey(), entry.getValue().count.sum(), entry.getValue().averageKilowatt()))
+				.filter(brand -> brand.count() > 0)
+				.sorted(Comparator.comparing(BrandStatsDto::brand))
+				.toList();
+	}
+
+	private static class Totals {
+
+		private final Counters all = new Counters();
+
+		private final Map<String, Counters> brands = new ConcurrentHashMap<>();
+
+		Totals(List<CarTotals> byBrand) {
+			byBrand.forEach(brand -> {
+				Counters counters = brands.computeIfAbsent(brand.brand(), key -> new Counters());
+				counters.add(brand.count(), brand.kilowattCount(), brand.kilowattSum());
+				all.add(brand.count(), brand.kilowattCount(), brand.kilowattSum());
+			});
+		}
+
+		void add(CarDto car, int sign) {
+			long kilowattCount = car.kilowatt() == null ? 0 : sign;
+			long kilowattSum = car.kilowatt() == null ? 0 : (long) sign * car.kilowatt();
+			all.add(sign, kilowattCount, kilowattSum);
+			// same null brand convention as the SQL aggregates
+			brands.computeIfAbsent(Objects.toString(car.brand(), ""), key -> new Counters())
+					.add(sign, kilowattCount, kilowattSum);
+		}
+
+	}
+
+	private static class Counters {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder kilowattCount = new LongAdder();
+
+		private final LongAdder kilowattSum = new LongAdder();
+
+		void add(long count, long kilowattCount, long kilowattSum) {
+			this.count.add(count);
+			this.kilowattCount.add(kilowattCount);
+			this.kilowattSum.add(kilowattSum);
+		}
+
+		Double averageKilowatt() {
+			long kilowatts = kilowattCount.sum();
+			return kilowatts == 0 ? null : (double) kilowattSum.sum() / kilowatts;
+		}
+
+	}
+
+}
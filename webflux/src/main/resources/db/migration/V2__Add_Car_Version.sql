@@ -0,0 +1 @@
+alter table car add column version integer not null default 0;
\ No newline at end of file
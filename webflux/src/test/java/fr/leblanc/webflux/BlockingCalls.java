@@ -0,0 +1,38 @@
+package fr.leblanc.webflux;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.platform.launcher.LauncherSession;
+import org.junit.platform.launcher.LauncherSessionListener;
+
+import reactor.blockhound.BlockHound;
+
+// Installs BlockHound when the test run starts, before any Reactor or Netty thread exists. A scheduler worker
+// already idle when the JDK gets instrumented never went through the entry of the methods the integrations allow,
+// its next park in the delay queue would be counted as a blocking call. Blocking calls on non-blocking threads are
+// counted instead of failing the request, the blocking call test and the benchmarks assert on the count.
+public final class BlockingCalls implements LauncherSessionListener {
+
+	private static final LongAdder COUNT = new LongAdder();
+
+	private static final AtomicReference<String> LAST = new AtomicReference<>("none");
+
+	@Override
+	public void launcherSessionOpened(LauncherSession session) {
+		// install() also applies the Reactor and Netty integrations that mark their threads non-blocking
+		BlockHound.install(builder -> builder.blockingMethodCallback(method -> {
+			COUNT.increment();
+			LAST.set(method + " on " + Thread.currentThread().getName());
+		}));
+	}
+
+	public static long count() {
+		return COUNT.sum();
+	}
+
+	public static String last() {
+		return LAST.get();
+	}
+
+}
@@ -0,0 +1,47 @@
+package fr.leblanc.webflux;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import fr.leblanc.webflux.config.CodecConfig;
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.repository.CarCsv;
+import reactor.core.publisher.Flux;
+
+// every car endpoint once over Reactor Netty, on the benchmark profile's H2 database, with BlockHound counting
+// blocking calls on non-blocking threads, see BlockingCalls. Batched lookups are on so they are checked too.
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = "car.batch.enabled=true")
+class BlockingCallsTests {
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void carEndpointsDoNotBlock() {
+		WebClient client = WebClient.create("http://localhost:" + port + "/car");
+		long before = BlockingCalls.count();
+
+		CarDto car = client.post().bodyValue(new CarDto(null, "Brand", 100)).retrieve().bodyToMono(CarDto.class).block();
+		client.get().uri("/{carId}", car.id()).retrieve().bodyToMono(CarDto.class).block();
+		client.put().uri("/{carId}", car.id()).bodyValue(new CarDto(null, "Other", 120)).retrieve().bodyToMono(CarDto.class).block();
+		client.get().uri("/all").retrieve().bodyToFlux(CarDto.class).blockLast();
+		client.get().uri("/all").accept(MediaType.parseMediaType(CodecConfig.APPLICATION_SMILE_VALUE))
+				.retrieve().bodyToFlux(CarDto.class).blockLast();
+		client.get().uri("/stats").retrieve().bodyToMono(String.class).block();
+		client.post().uri("/import").contentType(MediaType.parseMediaType(CarCsv.TEXT_CSV_VALUE))
+				.body(Flux.just(CarCsv.HEADER + "\n", ",Imported,90\n"), String.class)
+				.retrieve().bodyToMono(String.class).block();
+		client.get().uri("/export").retrieve().bodyToFlux(String.class).blockLast();
+
+		assertEquals(0, BlockingCalls.count() - before, "blocking call on a non-blocking thread, last: " + BlockingCalls.last());
+	}
+
+}
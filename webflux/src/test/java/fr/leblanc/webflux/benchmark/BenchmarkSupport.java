@@ -0,0 +1,22 @@
+package fr.leblanc.webflux.benchmark;
+
+import fr.leblanc.webflux.BlockingCalls;
+
+final class BenchmarkSupport {
+
+	private BenchmarkSupport() {
+	}
+
+	static long blockingCalls() {
+		return BlockingCalls.count();
+	}
+
+	static String lastBlockingCall() {
+		return BlockingCalls.last();
+	}
+
+	static int intProperty(String name, int defaultValue) {
+		return Integer.getInteger(name, defaultValue);
+	}
+
+}
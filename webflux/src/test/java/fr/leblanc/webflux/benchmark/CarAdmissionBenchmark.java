@@ -0,0 +1,99 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+// compare runs with -Dbenchmark.admission=true and false
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"car.admission.enabled=${benchmark.admission:true}",
+		"car.admission.concurrency.bulk=4",
+		"car.admission.rate.per-second=0",
+		"car.admission.shed.acquire-latency=50ms" })
+class CarAdmissionBenchmark {
+
+	private static final int CARS = BenchmarkSupport.intProperty("benchmark.cars", 20_000);
+
+	private static final int REQUESTS = BenchmarkSupport.intProperty("benchmark.requests", 2_000);
+
+	private static final int CONCURRENCY = BenchmarkSupport.intProperty("benchmark.concurrency", 16);
+
+	private static final int FLOOD_CONCURRENCY = BenchmarkSupport.intProperty("benchmark.flood-concurrency", 64);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Test
+	void getCarDuringListFlood() {
+		databaseClient.sql("insert into car (brand, kilowatt) select 'Brand ' || mod(x, 50), mod(x, 400) from system_range(1, :cars)")
+				.bind("cars", CARS)
+				.then()
+				.block();
+		int firstId = databaseClient.sql("select min(id) from car").map(row -> row.get(0, Integer.class)).one().block();
+		WebClient client = WebClient.create("http://localhost:" + port + "/car");
+
+		Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+		StringBuilder report = new StringBuilder()
+				.append(String.format("Admission benchmark: cars=%d, requests=%d, concurrency=%d, flood-concurrency=%d%n",
+						CARS, REQUESTS, CONCURRENCY, FLOOD_CONCURRENCY));
+		report.append(getCars("alone", client, firstId, statuses)).append(System.lineSeparator());
+
+		Sinks.Empty<Void> stop = Sinks.empty();
+		Flux.range(0, FLOOD_CONCURRENCY)
+				.flatMap(i -> Flux.defer(() -> status(client, "/all", "list", statuses)).repeat(), FLOOD_CONCURRENCY)
+				.takeUntilOther(stop.asMono())
+				.subscribe();
+		report.append(getCars("flooded", client, firstId, statuses)).append(System.lineSeparator());
+		stop.tryEmitEmpty();
+
+		new TreeMap<>(statuses).forEach((status, count) -> report.append(String.format("%-24s %8d%n", status, count.sum())));
+		System.out.println(report);
+	}
+
+	@AfterEach
+	void clean() {
+		databaseClient.sql("delete from car").then().block();
+	}
+
+	private String getCars(String name, WebClient client, int firstId, Map<String, LongAdder> statuses) {
+		LatencyRecorder recorder = new LatencyRecorder(name, REQUESTS);
+		recorder.start();
+		Flux.range(0, REQUESTS)
+				.flatMap(i -> Mono.defer(() -> {
+					long start = System.nanoTime();
+					return status(client, "/" + (firstId + ThreadLocalRandom.current().nextInt(CARS)), "get " + name, statuses)
+							.doOnTerminate(() -> recorder.record(System.nanoTime() - start));
+				}), CONCURRENCY)
+				.blockLast();
+		recorder.stop();
+		return recorder.report();
+	}
+
+	private static Mono<Integer> status(WebClient client, String uri, String name, Map<String, LongAdder> statuses) {
+		return client.get().uri(uri)
+				.exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()))
+				.onErrorReturn(-1)
+				.doOnNext(status -> statuses.computeIfAbsent(name + " " + status, key -> new LongAdder()).increment());
+	}
+
+}
@@ -0,0 +1,100 @@
+package fr.leblanc.webflux.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.SchedulerStatsDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class CarApiBenchmark {
+
+	private static final int CONCURRENCY = BenchmarkSupport.intProperty("benchmark.concurrency", 64);
+
+	private static final int REQUESTS = BenchmarkSupport.intProperty("benchmark.requests", 2_000);
+
+	private static final int WARMUP = BenchmarkSupport.intProperty("benchmark.warmup", 500);
+
+	private static final int LIST_REQUESTS = BenchmarkSupport.intProperty("benchmark.list-requests", 100);
+
+	@LocalServerPort
+	private int port;
+
+	@Test
+	void carApi() {
+		WebClient client = WebClient.create("http://localhost:" + port + "/car");
+		long blockingCallsBefore = BenchmarkSupport.blockingCalls();
+
+		List<Integer> ids = Flux.range(0, 1_000)
+				.flatMap(i -> create(client, i), CONCURRENCY)
+				.map(CarDto::id)
+				.collectList()
+				.block();
+
+		IntFunction<Mono<?>> get = i -> client.get().uri("/{carId}", randomId(ids)).retrieve().bodyToMono(CarDto.class);
+		IntFunction<Mono<?>> create = i -> create(client, i);
+		IntFunction<Mono<?>> update = i -> client.put().uri("/{carId}", randomId(ids))
+				.bodyValue(new CarDto(null, "Brand " + i, i % 500))
+				.retrieve()
+				.bodyToMono(CarDto.class);
+		IntFunction<Mono<?>> list = i -> client.get().uri("/all").retrieve().bodyToFlux(CarDto.class).then();
+
+		StringBuilder report = new StringBuilder()
+				.append(String.format("Car API benchmark: concurrency=%d, requests=%d, list-requests=%d%n",
+						CONCURRENCY, REQUESTS, LIST_REQUESTS));
+		report.append(run("get", get, REQUESTS)).append(System.lineSeparator());
+		report.append(run("create", create, REQUESTS)).append(System.lineSeparator());
+		report.append(run("update", update, REQUESTS)).append(System.lineSeparator());
+		report.append(run("list", list, LIST_REQUESTS)).append(System.lineSeparator());
+		WebClient.create("http://localhost:" + port + "/diagnostics/schedulers").get()
+				.retrieve()
+				.bodyToFlux(SchedulerStatsDto.class)
+				.toStream()
+				.forEach(stats -> report.append(String.format(
+						"scheduler %-16s executors %3d   queued %5d   tasks %8d   queue avg %8.3f ms   max %8.3f ms   run avg %8.3f ms%n",
+						stats.scheduler(), stats.executors(), stats.queuedTasks(), stats.completedTasks(),
+						stats.averageQueueMillis(), stats.maxQueueMillis(), stats.averageRunMillis())));
+		long blockingCalls = BenchmarkSupport.blockingCalls() - blockingCallsBefore;
+		report.append("blocking calls on non-blocking threads: ").append(blockingCalls);
+
+		System.out.println(report);
+		assertEquals(0, blockingCalls, "blocking call on a non-blocking thread, last: " + BenchmarkSupport.lastBlockingCall());
+	}
+
+	private String run(String operation, IntFunction<Mono<?>> request, int requests) {
+		Flux.range(0, Math.min(WARMUP, requests)).flatMap(request::apply, CONCURRENCY).blockLast();
+
+		LatencyRecorder recorder = new LatencyRecorder(operation, requests);
+		recorder.start();
+		Flux.range(0, requests)
+				.flatMap(i -> Mono.defer(() -> {
+					long start = System.nanoTime();
+					return request.apply(i).doOnTerminate(() -> recorder.record(System.nanoTime() - start));
+				}), CONCURRENCY)
+				.blockLast();
+		recorder.stop();
+		return recorder.report();
+	}
+
+	private static Mono<CarDto> create(WebClient client, int i) {
+		return client.post().bodyValue(new CarDto(null, "Brand " + i, i % 500)).retrieve().bodyToMono(CarDto.class);
+	}
+
+	private static Integer randomId(List<Integer> ids) {
+		return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+	}
+
+}
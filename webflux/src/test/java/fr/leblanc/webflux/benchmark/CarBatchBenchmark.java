@@ -0,0 +1,128 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.IntUnaryOperator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.repository.CarQueryRepository;
+import fr.leblanc.webflux.service.impl.CarBatchLoader;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+class CarBatchBenchmark {
+
+	private static final int CARS = BenchmarkSupport.intProperty("benchmark.cars", 1_000);
+
+	private static final int CONCURRENCY = BenchmarkSupport.intProperty("benchmark.concurrency", 256);
+
+	private static final int REQUESTS = BenchmarkSupport.intProperty("benchmark.requests", 20_000);
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private CarQueryRepository carQueryRepository;
+
+	@Autowired
+	private CarBatchLoader carBatchLoader;
+
+	@Test
+	void getCar() {
+		databaseClient.sql("insert into car (brand, kilowatt) select 'Brand ' || mod(x, 50), mod(x, 400) from system_range(1, :cars)")
+				.bind("cars", CARS)
+				.then()
+				.block();
+		int firstId = databaseClient.sql("select min(id) from car").map(row -> row.get(0, Integer.class)).one().block();
+
+		IntFunction<Mono<CarDto>> direct = carQueryRepository::findById;
+		IntFunction<Mono<CarDto>> batched = carBatchLoader::findById;
+		IntUnaryOperator hot = i -> firstId;
+		IntUnaryOperator spread = i -> firstId + ThreadLocalRandom.current().nextInt(CARS);
+
+		StringBuilder report = new StringBuilder()
+				.append(String.format("getCar coalescing benchmark: cars=%d, concurrency=%d, requests=%d%n",
+						CARS, CONCURRENCY, REQUESTS));
+		report.append("one hot car").append(System.lineSeparator());
+		report.append(run("direct", direct, hot)).append(System.lineSeparator());
+		report.append(run("batched", batched, hot)).append(System.lineSeparator());
+		report.append("random cars").append(System.lineSeparator());
+		report.append(run("direct", direct, spread)).append(System.lineSeparator());
+		report.append(run("batched", batched, spread)).append(System.lineSeparator());
+		System.out.println(report);
+	}
+
+	@AfterEach
+	void clean() {
+		databaseClient.sql("delete from car").then().block();
+	}
+
+	private String run(String name, IntFunction<Mono<CarDto>> getCar, IntUnaryOperator carIds) {
+		Flux.range(0, Math.min(REQUESTS, 1_000)).flatMap(i -> getCar.apply(carIds.applyAsInt(i)), CONCURRENCY).blockLast();
+		QueryCounting.QUERIES.reset();
+
+		LatencyRecorder recorder = new LatencyRecorder(name, REQUESTS);
+		recorder.start();
+		Flux.range(0, REQUESTS)
+				.flatMap(i -> Mono.defer(() -> {
+					long start = System.nanoTime();
+					return getCar.apply(carIds.applyAsInt(i)).doOnTerminate(() -> recorder.record(System.nanoTime() - start));
+				}), CONCURRENCY)
+				.blockLast();
+		recorder.stop();
+
+		long queries = QueryCounting.QUERIES.sum();
+		return String.format("%s   %7d queries   %6.1f requests/query", recorder.report(), queries,
+				(double) REQUESTS / queries);
+	}
+
+	// counts the statements sent through the DatabaseClient
+	@TestConfiguration
+	static class QueryCounting {
+
+		static final LongAdder QUERIES = new LongAdder();
+
+		@Bean
+		static BeanPostProcessor countingDatabaseClient() {
+			return new BeanPostProcessor() {
+
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DatabaseClient databaseClient)) {
+						return bean;
+					}
+					return Proxy.newProxyInstance(DatabaseClient.class.getClassLoader(), new Class<?>[] { DatabaseClient.class },
+							(proxy, method, args) -> {
+								if (method.getName().equals("sql")) {
+									QUERIES.increment();
+								}
+								try {
+									return method.invoke(databaseClient, args);
+								} catch (InvocationTargetException e) {
+									throw e.getCause();
+								}
+							});
+				}
+
+			};
+		}
+
+	}
+
+}
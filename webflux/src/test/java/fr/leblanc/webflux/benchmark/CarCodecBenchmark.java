@@ -0,0 +1,109 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import fr.leblanc.webflux.config.CodecConfig;
+import fr.leblanc.webflux.controller.dto.CarDto;
+import reactor.core.publisher.Flux;
+
+class CarCodecBenchmark {
+
+	private static final int CARS = BenchmarkSupport.intProperty("benchmark.cars", 100_000);
+
+	private static final int ITERATIONS = BenchmarkSupport.intProperty("benchmark.iterations", 10);
+
+	private static final ResolvableType CAR_TYPE = ResolvableType.forClass(CarDto.class);
+
+	@Test
+	void carCodecs() {
+		ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+		new CodecConfig(Jackson2ObjectMapperBuilder.json()).configureHttpMessageCodecs(configurer);
+
+		List<CarDto> cars = Flux.range(0, CARS).map(i -> new CarDto(i, "Brand " + (i % 50), 50 + i % 400)).collectList().block();
+
+		StringBuilder report = new StringBuilder()
+				.append(String.format("CarDto codec benchmark: cars=%d, iterations=%d%n", CARS, ITERATIONS));
+		for (MediaType mediaType : List.of(MediaType.APPLICATION_JSON, MediaType.APPLICATION_NDJSON,
+				MediaType.parseMediaType(CodecConfig.APPLICATION_SMILE_VALUE),
+				MediaType.parseMediaType(CodecConfig.APPLICATION_STREAM_SMILE_VALUE))) {
+			report.append(run(configurer, cars, mediaType)).append(System.lineSeparator());
+		}
+		System.out.println(report);
+	}
+
+	private static String run(ServerCodecConfigurer configurer, List<CarDto> cars, MediaType mediaType) {
+		Encoder<CarDto> encoder = encoder(configurer, mediaType);
+		Decoder<CarDto> decoder = decoder(configurer, mediaType);
+
+		byte[] encoded = encode(encoder, cars, mediaType);
+		if (decode(decoder, encoded, mediaType) != cars.size()) {
+			throw new IllegalStateException("Round trip failed for " + mediaType);
+		}
+
+		long encodeNanos = 0;
+		long decodeNanos = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			long start = System.nanoTime();
+			encode(encoder, cars, mediaType);
+			encodeNanos += System.nanoTime() - start;
+			start = System.nanoTime();
+			decode(decoder, encoded, mediaType);
+			decodeNanos += System.nanoTime() - start;
+		}
+
+		double carsProcessed = (double) cars.size() * ITERATIONS;
+		return String.format("%-36s %6.1f bytes/car   encode %10.0f cars/s   decode %10.0f cars/s", mediaType,
+				(double) encoded.length / cars.size(), carsProcessed / (encodeNanos / 1e9),
+				carsProcessed / (decodeNanos / 1e9));
+	}
+
+	private static byte[] encode(Encoder<CarDto> encoder, List<CarDto> cars, MediaType mediaType) {
+		DataBuffer joined = DataBufferUtils.join(encoder.encode(Flux.fromIterable(cars),
+				DefaultDataBufferFactory.sharedInstance, CAR_TYPE, mediaType, Collections.emptyMap())).block();
+		byte[] bytes = new byte[joined.readableByteCount()];
+		joined.read(bytes);
+		DataBufferUtils.release(joined);
+		return bytes;
+	}
+
+	private static long decode(Decoder<CarDto> decoder, byte[] encoded, MediaType mediaType) {
+		Flux<DataBuffer> input = Flux.range(0, (encoded.length + 8191) / 8192)
+				.map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(encoded, chunk * 8192,
+						Math.min(8192, encoded.length - chunk * 8192)).slice()));
+		return decoder.decode(input, CAR_TYPE, mediaType, Collections.emptyMap()).count().block();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Encoder<CarDto> encoder(ServerCodecConfigurer configurer, MediaType mediaType) {
+		return configurer.getWriters().stream()
+				.filter(writer -> writer instanceof EncoderHttpMessageWriter && writer.canWrite(CAR_TYPE, mediaType))
+				.map(writer -> (Encoder<CarDto>) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No codec for " + mediaType));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Decoder<CarDto> decoder(ServerCodecConfigurer configurer, MediaType mediaType) {
+		return configurer.getReaders().stream()
+				.filter(reader -> reader instanceof DecoderHttpMessageReader && reader.canRead(CAR_TYPE, mediaType))
+				.map(reader -> (Decoder<CarDto>) ((DecoderHttpMessageReader<?>) reader).getDecoder())
+				.findFirst()
+				.orElseThrow(() -> new IllegalStateException("No codec for " + mediaType));
+	}
+
+}
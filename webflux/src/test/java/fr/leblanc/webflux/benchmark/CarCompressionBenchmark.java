@@ -0,0 +1,93 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.compression.Brotli;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class CarCompressionBenchmark {
+
+	private static final int CONCURRENCY = BenchmarkSupport.intProperty("benchmark.concurrency", 16);
+
+	private static final int REQUESTS = BenchmarkSupport.intProperty("benchmark.list-requests", 20);
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Test
+	void listCompression() {
+		List<String> encodings = Brotli.isAvailable() ? List.of("identity", "gzip", "br") : List.of("identity", "gzip");
+
+		StringBuilder report = new StringBuilder()
+				.append(String.format("/car/all compression benchmark: concurrency=%d, requests=%d%n", CONCURRENCY, REQUESTS));
+		int inserted = 0;
+		for (int size : List.of(10, 1_000, 100_000)) {
+			insertCars(inserted, size);
+			inserted = size;
+			for (HttpProtocol protocol : List.of(HttpProtocol.HTTP11, HttpProtocol.H2C)) {
+				for (String encoding : encodings) {
+					report.append(run(size, protocol, encoding)).append(System.lineSeparator());
+				}
+			}
+		}
+		System.out.println(report);
+	}
+
+	@AfterEach
+	void clean() {
+		databaseClient.sql("delete from car").then().block();
+	}
+
+	private void insertCars(int from, int to) {
+		databaseClient.sql("insert into car (brand, kilowatt) select 'Brand ' || mod(x, 50), mod(x, 400) from system_range(:from, :to)")
+				.bind("from", from + 1)
+				.bind("to", to)
+				.then()
+				.block();
+	}
+
+	// compressed bytes as they come off the wire: the client does not decompress
+	private String run(int size, HttpProtocol protocol, String encoding) {
+		HttpClient client = HttpClient.create()
+				.protocol(protocol)
+				.baseUrl("http://localhost:" + port)
+				.headers(headers -> headers.set("Accept-Encoding", encoding));
+
+		long bytes = responseBytes(client).block();
+		Flux.range(0, Math.min(REQUESTS, 5)).flatMap(i -> responseBytes(client), CONCURRENCY).blockLast();
+
+		long start = System.nanoTime();
+		Flux.range(0, REQUESTS).flatMap(i -> responseBytes(client), CONCURRENCY).blockLast();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		return String.format("%7d cars  %-8s %-8s %10d bytes  %7.1f bytes/car  %8.1f req/s", size, protocol, encoding,
+				bytes, (double) bytes / size, REQUESTS / seconds);
+	}
+
+	private static Mono<Long> responseBytes(HttpClient client) {
+		return client.get()
+				.uri("/car/all")
+				.responseContent()
+				.map(ByteBuf::readableBytes)
+				.reduce(0L, Long::sum);
+	}
+
+}
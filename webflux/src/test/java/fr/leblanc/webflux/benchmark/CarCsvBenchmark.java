@@ -0,0 +1,113 @@
+package fr.leblanc.webflux.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import fr.leblanc.webflux.controller.dto.CarImportDto;
+import fr.leblanc.webflux.repository.CarCsv;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+// runs the batched insert fallback, H2 has no COPY
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class CarCsvBenchmark {
+
+	private static final int ROWS = BenchmarkSupport.intProperty("benchmark.rows", 1_000_000);
+
+	private static final int LINES_PER_CHUNK = 1_000;
+
+	@LocalServerPort
+	private int port;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Test
+	void importExport() {
+		WebClient client = WebClient.create("http://localhost:" + port + "/car");
+		MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		LongAccumulator maxHeap = new LongAccumulator(Math::max, 0);
+		Disposable heapSampler = Flux.interval(Duration.ofMillis(50))
+				.subscribe(tick -> maxHeap.accumulate(memory.getHeapMemoryUsage().getUsed()));
+
+		// generated lazily, the request body is never held in memory
+		Flux<String> csv = Flux.range(0, ROWS / LINES_PER_CHUNK)
+				.map(chunk -> {
+					StringBuilder lines = new StringBuilder(chunk == 0 ? "brand,kilowatt\n" : "");
+					for (int i = 0; i < LINES_PER_CHUNK; i++) {
+						int row = chunk * LINES_PER_CHUNK + i;
+						lines.append(row % 100 == 0 ? "\"Brand, \"\"quoted\"\"\"" : "Brand " + row % 50)
+								.append(',')
+								.append(row % 10 == 0 ? "" : String.valueOf(row % 400))
+								.append('\n');
+					}
+					return lines.toString();
+				});
+
+		long start = System.nanoTime();
+		CarImportDto imported = client.post().uri("/import")
+				.contentType(MediaType.parseMediaType(CarCsv.TEXT_CSV_VALUE))
+				.body(BodyInserters.fromPublisher(csv, String.class))
+				.retrieve()
+				.bodyToMono(CarImportDto.class)
+				.block();
+		double importSeconds = (System.nanoTime() - start) / 1e9;
+		long importHeap = maxHeap.getThenReset();
+
+		AtomicLong bytes = new AtomicLong();
+		start = System.nanoTime();
+		client.get().uri("/export")
+				.retrieve()
+				.bodyToFlux(DataBuffer.class)
+				.doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))
+				.doOnNext(DataBufferUtils::release)
+				.blockLast();
+		double exportSeconds = (System.nanoTime() - start) / 1e9;
+		long exportHeap = maxHeap.get();
+		heapSampler.dispose();
+
+		long nullKilowatts = databaseClient.sql("select count(*) from car where kilowatt is null")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.block();
+		long quotedBrands = databaseClient.sql("select count(*) from car where brand = 'Brand, \"quoted\"'")
+				.map(row -> row.get(0, Long.class))
+				.one()
+				.block();
+
+		System.out.println(String.format("CSV benchmark: rows=%d%n"
+				+ "import %10.0f rows/s   max heap %6.1f MB%n"
+				+ "export %10.0f rows/s   max heap %6.1f MB   %.1f bytes/row",
+				ROWS, imported.imported() / importSeconds, importHeap / 1e6, ROWS / exportSeconds, exportHeap / 1e6,
+				(double) bytes.get() / ROWS));
+		assertEquals(ROWS, imported.imported());
+		assertEquals(ROWS / 10, nullKilowatts);
+		assertEquals(ROWS / 100, quotedBrands);
+	}
+
+	@AfterEach
+	void clean() {
+		databaseClient.sql("delete from car").then().block();
+	}
+
+}
@@ -0,0 +1,84 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.sun.management.ThreadMXBean;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.repository.CarQueryRepository;
+import fr.leblanc.webflux.repository.CarRepository;
+import reactor.core.publisher.Flux;
+
+@ActiveProfiles("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.NONE)
+class CarReadBenchmark {
+
+	private static final int ROWS = BenchmarkSupport.intProperty("benchmark.rows", 1_000_000);
+
+	private static final int ITERATIONS = BenchmarkSupport.intProperty("benchmark.iterations", 5);
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private CarQueryRepository carQueryRepository;
+
+	@Test
+	void getAllCars() {
+		databaseClient.sql("insert into car (brand, kilowatt) select 'Brand ' || mod(x, 50), mod(x, 400) from system_range(1, :rows)")
+				.bind("rows", ROWS)
+				.then()
+				.block();
+
+		Supplier<Flux<CarDto>> entityMapping = () -> carRepository.findAll()
+				.map(carEntity -> new CarDto(carEntity.getId(), carEntity.getBrand(), carEntity.getKilowatt()));
+		Supplier<Flux<CarDto>> rowMapping = carQueryRepository::findAll;
+
+		StringBuilder report = new StringBuilder()
+				.append(String.format("getAllCars benchmark: rows=%d, iterations=%d%n", ROWS, ITERATIONS));
+		report.append(run("entity mapping", entityMapping)).append(System.lineSeparator());
+		report.append(run("row mapping", rowMapping)).append(System.lineSeparator());
+		System.out.println(report);
+	}
+
+	@AfterEach
+	void clean() {
+		databaseClient.sql("delete from car").then().block();
+	}
+
+	private static String run(String name, Supplier<Flux<CarDto>> query) {
+		query.get().then().block();
+
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			query.get().then().block();
+		}
+		long nanos = System.nanoTime() - start;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		double rows = (double) ROWS * ITERATIONS;
+		return String.format("%-16s %10.0f rows/s   %8.1f bytes allocated/row", name, rows / (nanos / 1e9),
+				allocated / rows);
+	}
+
+	// allocations of every live thread, the query runs on Reactor and R2DBC threads rather than the test thread
+	private static long allocatedBytes() {
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		return Arrays.stream(threads.getThreadAllocatedBytes(threads.getAllThreadIds())).filter(bytes -> bytes > 0).sum();
+	}
+
+}
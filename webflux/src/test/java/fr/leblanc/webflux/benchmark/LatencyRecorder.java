@@ -0,0 +1,56 @@
+package fr.leblanc.webflux.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class LatencyRecorder {
+
+	private final String operation;
+
+	private final long[] samples;
+
+	private final AtomicInteger count = new AtomicInteger();
+
+	private long startNanos;
+
+	private long endNanos;
+
+	LatencyRecorder(String operation, int capacity) {
+		this.operation = operation;
+		this.samples = new long[capacity];
+	}
+
+	void start() {
+		startNanos = System.nanoTime();
+	}
+
+	void stop() {
+		endNanos = System.nanoTime();
+	}
+
+	void record(long nanos) {
+		int index = count.getAndIncrement();
+		if (index < samples.length) {
+			samples[index] = nanos;
+		}
+	}
+
+	String report() {
+		int size = Math.min(count.get(), samples.length);
+		long[] sorted = Arrays.copyOf(samples, size);
+		Arrays.sort(sorted);
+		double seconds = (endNanos - startNanos) / 1e9;
+		return String.format("%-8s %8d req %10.0f req/s   p50 %8.3f ms   p99 %8.3f ms   p999 %8.3f ms",
+				operation, size, size / seconds, percentile(sorted, 0.50), percentile(sorted, 0.99),
+				percentile(sorted, 0.999));
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(index, 0)] / 1e6;
+	}
+
+}
@@ -0,0 +1,172 @@
+package fr.leblanc.webflux.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+class AdmissionControlFilterTests {
+
+	private static final InetSocketAddress CLIENT = new InetSocketAddress("10.0.0.1", 40000);
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final ConnectionAcquireMonitor monitor = new ConnectionAcquireMonitor(clock::get);
+
+	private AdmissionControlFilter filter;
+
+	@AfterEach
+	void stop() {
+		filter.stop();
+	}
+
+	@Test
+	void burstThenOneRequestPerInterval() {
+		filter = rateLimited(10, 3, "");
+		for (int i = 0; i < 3; i++) {
+			assertNull(status("/car/1", CLIENT));
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status("/car/1", CLIENT));
+		clock.addAndGet(Duration.ofMillis(100).toNanos());
+		assertNull(status("/car/1", CLIENT));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status("/car/1", CLIENT));
+		// a full refill gives the whole burst back, not more
+		clock.addAndGet(Duration.ofSeconds(10).toNanos());
+		for (int i = 0; i < 3; i++) {
+			assertNull(status("/car/1", CLIENT));
+		}
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status("/car/1", CLIENT));
+	}
+
+	@Test
+	void clientsHaveTheirOwnBucket() {
+		filter = rateLimited(1, 1, "");
+		assertNull(status("/car/1", CLIENT));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status("/car/1", CLIENT));
+		assertNull(status("/car/1", new InetSocketAddress("10.0.0.2", 40000)));
+	}
+
+	@Test
+	void forwardedClientComesFromTheFirstAddress() {
+		filter = rateLimited(1, 1, "X-Forwarded-For");
+		assertNull(status(forwarded("203.0.113.1, 10.0.0.9")));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status(forwarded("203.0.113.1, 10.0.0.8")));
+		assertNull(status(forwarded("203.0.113.2, 10.0.0.9")));
+	}
+
+	@Test
+	void unresolvedPeerAddressIsKeyedByHost() {
+		filter = rateLimited(1, 1, "");
+		InetSocketAddress unresolved = InetSocketAddress.createUnresolved("client.example", 40000);
+		assertNull(status("/car/1", unresolved));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, status("/car/1", unresolved));
+	}
+
+	@Test
+	void idleBucketsAreEvicted() {
+		filter = rateLimited(10, 2, "");
+		status("/car/1", CLIENT);
+		status("/car/1", new InetSocketAddress("10.0.0.2", 40000));
+		filter.evictIdleClients();
+		assertEquals(2, filter.trackedClients());
+		clock.addAndGet(Duration.ofMillis(101).toNanos());
+		filter.evictIdleClients();
+		assertEquals(0, filter.trackedClients());
+	}
+
+	@Test
+	void routesAreLimitedSeparately() {
+		filter = concurrencyLimited(1, 1, Duration.ZERO);
+		Sinks.Empty<Void> bulk = Sinks.empty();
+		MockServerWebExchange running = exchange("/car/all", CLIENT);
+		filter.filter(running, exchange -> bulk.asMono()).subscribe();
+
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status("/car/export", CLIENT));
+		assertNull(status("/car/1", CLIENT));
+		// the change feed holds no connection and is never limited
+		assertNull(status("/car/changes", CLIENT));
+
+		bulk.tryEmitEmpty();
+		assertNull(status("/car/export", CLIENT));
+	}
+
+	@Test
+	void bulkRequestsAreShedFirst() {
+		filter = concurrencyLimited(16, 256, Duration.ofMillis(100));
+		recordAcquire(Duration.ofMillis(750));
+		// one sample of 750ms moves the average to 150ms: over the bulk threshold, under twice that
+		assertEquals(Duration.ofMillis(150), monitor.getAcquireLatency());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status("/car/all", CLIENT));
+		assertNull(status("/car/1", CLIENT));
+
+		recordAcquire(Duration.ofMillis(1000));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status("/car/1", CLIENT));
+
+		// no acquisition for a second: shed traffic makes none, the pool is considered idle again
+		clock.addAndGet(Duration.ofMillis(1001).toNanos());
+		assertNull(status("/car/all", CLIENT));
+	}
+
+	@Test
+	void disabledFilterAdmitsEverything() {
+		filter = new AdmissionControlFilter(monitor, false, 0, 0, 1, 1, "", Duration.ofNanos(1), clock::get);
+		recordAcquire(Duration.ofSeconds(1));
+		assertNull(status("/car/all", CLIENT));
+		assertNull(status("/car/all", CLIENT));
+	}
+
+	@Test
+	void otherPathsAreNotFiltered() {
+		filter = concurrencyLimited(0, 0, Duration.ZERO);
+		assertNull(status("/actuator/health", CLIENT));
+		assertNull(status("/cars", CLIENT));
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, status("/car", CLIENT));
+	}
+
+	private AdmissionControlFilter rateLimited(long ratePerSecond, long burst, String clientHeader) {
+		return new AdmissionControlFilter(monitor, true, 16, 256, ratePerSecond, burst, clientHeader, Duration.ZERO,
+				clock::get);
+	}
+
+	private AdmissionControlFilter concurrencyLimited(int bulk, int single, Duration shedLatency) {
+		return new AdmissionControlFilter(monitor, true, bulk, single, 0, 0, "", shedLatency, clock::get);
+	}
+
+	private void recordAcquire(Duration latency) {
+		ConnectionAcquireMonitorTests.acquire(monitor, clock, latency);
+	}
+
+	private HttpStatusCode status(String path, InetSocketAddress remoteAddress) {
+		return status(exchange(path, remoteAddress));
+	}
+
+	private HttpStatusCode status(MockServerWebExchange exchange) {
+		WebFilterChain chain = admitted -> Mono.empty();
+		filter.filter(exchange, chain).block();
+		return exchange.getResponse().getStatusCode();
+	}
+
+	private static MockServerWebExchange exchange(String path, InetSocketAddress remoteAddress) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path).remoteAddress(remoteAddress));
+	}
+
+	private static MockServerWebExchange forwarded(String forwardedFor) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/car/1")
+				.remoteAddress(new InetSocketAddress("10.0.0.9", 40000))
+				.header("X-Forwarded-For", forwardedFor));
+	}
+
+}
@@ -0,0 +1,85 @@
+package fr.leblanc.webflux.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Wrapped;
+import reactor.core.publisher.Mono;
+
+class ConnectionAcquireMonitorTests {
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final ConnectionAcquireMonitor monitor = new ConnectionAcquireMonitor(clock::get);
+
+	@Test
+	void idleUntilTheFirstAcquisition() {
+		assertEquals(Duration.ZERO, monitor.getAcquireLatency());
+	}
+
+	@Test
+	void averageMovesByAFifthOfEachSample() {
+		acquire(monitor, clock, Duration.ofMillis(100));
+		assertEquals(Duration.ofMillis(20), monitor.getAcquireLatency());
+		acquire(monitor, clock, Duration.ofMillis(100));
+		assertEquals(Duration.ofMillis(36), monitor.getAcquireLatency());
+		acquire(monitor, clock, Duration.ZERO);
+		assertEquals(Duration.ofNanos(28_800_000), monitor.getAcquireLatency());
+	}
+
+	@Test
+	void staleAverageReadsAsZero() {
+		acquire(monitor, clock, Duration.ofMillis(100));
+		clock.addAndGet(Duration.ofSeconds(1).toNanos());
+		assertEquals(Duration.ofMillis(20), monitor.getAcquireLatency());
+		clock.incrementAndGet();
+		assertEquals(Duration.ZERO, monitor.getAcquireLatency());
+	}
+
+	@Test
+	void connectionFactoriesAreWrappedOnce() {
+		ConnectionFactory pool = factory(clock, Duration.ZERO);
+		Object wrapped = monitor.postProcessAfterInitialization(pool, "connectionFactory");
+		assertSame(pool, ((Wrapped<?>) wrapped).unwrap());
+		assertSame(wrapped, monitor.postProcessAfterInitialization(wrapped, "connectionFactory"));
+		Object other = new Object();
+		assertSame(other, monitor.postProcessAfterInitialization(other, "other"));
+	}
+
+	// one connection taken through the monitor's wrapper, the fake clock moving by the latency while it is acquired
+	static void acquire(ConnectionAcquireMonitor monitor, AtomicLong clock, Duration latency) {
+		ConnectionFactory timed = (ConnectionFactory) monitor.postProcessAfterInitialization(factory(clock, latency),
+				"connectionFactory");
+		Mono.from(timed.create()).block();
+	}
+
+	private static ConnectionFactory factory(AtomicLong clock, Duration latency) {
+		return new ConnectionFactory() {
+
+			@Override
+			public Publisher<? extends Connection> create() {
+				return Mono.fromSupplier(() -> {
+					clock.addAndGet(latency.toNanos());
+					return mock(Connection.class);
+				});
+			}
+
+			@Override
+			public ConnectionFactoryMetadata getMetadata() {
+				return () -> "test";
+			}
+
+		};
+	}
+
+}
@@ -0,0 +1,112 @@
+package fr.leblanc.webflux.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.leblanc.webflux.controller.dto.CarDto;
+
+class CarCsvTests {
+
+	private static final String BODY = CarCsv.HEADER + "\r\n"
+			+ ",\"Citroën \"\"DS\"\"\",150\r\n"
+			+ ",\"Two\nlines\",90\n"
+			+ ",🚗,\n"
+			+ ",\"\",70";
+
+	private static final List<String> RECORDS = List.of(CarCsv.HEADER,
+			",\"Citroën \"\"DS\"\"\",150",
+			",\"Two\nlines\",90",
+			",🚗,",
+			",\"\",70");
+
+	@Test
+	void wholeBody() {
+		assertEquals(RECORDS, records(bytes(BODY)));
+	}
+
+	// every split point, so every multi-byte character, quoted line break and CRLF is cut somewhere
+	@Test
+	void bodySplitAnywhere() {
+		byte[] body = bytes(BODY);
+		for (int split = 0; split <= body.length; split++) {
+			assertEquals(RECORDS, records(Arrays.copyOfRange(body, 0, split), Arrays.copyOfRange(body, split, body.length)),
+					"split at " + split);
+		}
+	}
+
+	@Test
+	void bodyOneByteAtATime() {
+		byte[] body = bytes(BODY);
+		byte[][] buffers = new byte[body.length][];
+		for (int i = 0; i < body.length; i++) {
+			buffers[i] = new byte[] { body[i] };
+		}
+		assertEquals(RECORDS, records(buffers));
+	}
+
+	@Test
+	void emptyBody() {
+		assertEquals(List.of(), records());
+		assertEquals(List.of(), records(new byte[0]));
+	}
+
+	@Test
+	void trailingLineBreakAddsNoRecord() {
+		assertEquals(List.of("a", "b"), records(bytes("a\nb\n")));
+	}
+
+	@Test
+	void unterminatedQuote() {
+		assertThrows(IllegalArgumentException.class, () -> records(bytes(",\"open,90\n,next,1\n")));
+	}
+
+	@Test
+	void bodyEndingInsideACharacter() {
+		byte[] body = bytes(",ë");
+		assertThrows(IllegalArgumentException.class, () -> records(Arrays.copyOf(body, body.length - 1)));
+	}
+
+	@Test
+	void invalidUtf8() {
+		assertThrows(IllegalArgumentException.class, () -> records(new byte[] { ',', (byte) 0xFF, '\n' }));
+	}
+
+	@Test
+	void nullAndEmptyBrandsSurviveAFormatAndParse() {
+		CarCsv.Columns columns = CarCsv.columns(CarCsv.HEADER);
+		for (CarDto car : List.of(new CarDto(1, null, null), new CarDto(2, "", 10), new CarDto(3, "a,\"b\"\nc", 20),
+				new CarDto(4, "\\N", 30))) {
+			assertEquals(new CarDto(null, car.brand(), car.kilowatt()), CarCsv.parse(columns, CarCsv.format(car)));
+		}
+	}
+
+	@Test
+	void columnsInAnyOrder() {
+		CarCsv.Columns columns = CarCsv.columns(" Kilowatt ,id,BRAND");
+		assertEquals(new CarDto(null, "Brand", 120), CarCsv.parse(columns, "120,7,Brand"));
+		assertThrows(IllegalArgumentException.class, () -> CarCsv.columns("id,brand"));
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> records(byte[]... buffers) {
+		CarCsv.Records splitter = new CarCsv.Records();
+		List<String> records = new ArrayList<>();
+		for (byte[] buffer : buffers) {
+			splitter.feed(ByteBuffer.wrap(buffer), records);
+		}
+		splitter.finish(records);
+		return records;
+	}
+
+}
@@ -0,0 +1,149 @@
+package fr.leblanc.webflux.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class BatchLoaderTests {
+
+	private static final Duration WINDOW = Duration.ofMillis(10);
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+
+	private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+
+	private BatchLoader<Integer, String> batchLoader;
+
+	@AfterEach
+	void dispose() {
+		batchLoader.dispose();
+		scheduler.dispose();
+	}
+
+	@Test
+	void requestsWithinTheWindowShareOneLookup() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys)));
+		StepVerifier.create(Flux.merge(batchLoader.load(1), batchLoader.load(2)).collectList())
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.assertNext(values -> assertEquals(Set.of("car 1", "car 2"), Set.copyOf(values)))
+				.verifyComplete();
+		assertEquals(List.of(Set.of(1, 2)), batches);
+	}
+
+	@Test
+	void nothingIsLookedUpBeforeTheWindowEnds() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys)));
+		StepVerifier.create(batchLoader.load(1))
+				.then(() -> scheduler.advanceTimeBy(WINDOW.dividedBy(2)))
+				.then(() -> assertEquals(List.of(), batches))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.expectNext("car 1")
+				.verifyComplete();
+	}
+
+	@Test
+	void fullBatchIsLookedUpAtOnce() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys)));
+		StepVerifier.create(Flux.range(1, 7).flatMap(batchLoader::load).collectList())
+				.then(() -> scheduler.advanceTime())
+				.then(() -> assertEquals(List.of(Set.of(1, 2, 3), Set.of(4, 5, 6)), batches))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.assertNext(values -> assertEquals(7, values.size()))
+				.verifyComplete();
+		assertEquals(List.of(Set.of(1, 2, 3), Set.of(4, 5, 6), Set.of(7)), batches);
+	}
+
+	@Test
+	void concurrentRequestsForOneKeyShareTheResult() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys)));
+		StepVerifier.create(Flux.merge(batchLoader.load(1), batchLoader.load(1), batchLoader.load(1)).collectList())
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.assertNext(values -> assertEquals(List.of("car 1", "car 1", "car 1"), values))
+				.verifyComplete();
+		assertEquals(List.of(Set.of(1)), batches);
+	}
+
+	@Test
+	void keyMissingFromTheBatchCompletesEmpty() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys.stream().filter(key -> key != 2).collect(Collectors.toSet()))));
+		StepVerifier.create(batchLoader.load(2))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.verifyComplete();
+	}
+
+	@Test
+	void failedBatchFailsItsRequestsOnly() {
+		AtomicInteger lookups = new AtomicInteger();
+		batchLoader = loader(3, keys -> lookups.getAndIncrement() == 0 ? Mono.error(new IllegalStateException("down"))
+				: Mono.just(names(keys)));
+		StepVerifier.create(batchLoader.load(1))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.verifyErrorMessage("down");
+		// the pipeline keeps running and the failed key is looked up again
+		StepVerifier.create(batchLoader.load(1))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.expectNext("car 1")
+				.verifyComplete();
+	}
+
+	@Test
+	void unansweredRequestTimesOutAndIsRetried() {
+		AtomicInteger lookups = new AtomicInteger();
+		batchLoader = new BatchLoader<>(keys -> {
+			batches.add(keys);
+			return lookups.getAndIncrement() == 0 ? Mono.never() : Mono.just(names(keys));
+		}, WINDOW, 3, Duration.ofMillis(200), scheduler);
+		// the request timeout runs on real time, the window on the virtual scheduler
+		StepVerifier.create(batchLoader.load(1))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.expectError(TimeoutException.class)
+				.verify(Duration.ofSeconds(5));
+		StepVerifier.create(batchLoader.load(1))
+				.then(() -> scheduler.advanceTimeBy(WINDOW))
+				.expectNext("car 1")
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+		assertEquals(2, batches.size());
+	}
+
+	@Test
+	void disposedLoaderFailsNewRequests() {
+		batchLoader = loader(3, keys -> Mono.just(names(keys)));
+		batchLoader.dispose();
+		assertTrue(batchLoader.isDisposed());
+		StepVerifier.create(batchLoader.load(1))
+				.expectError(IllegalStateException.class)
+				.verify(Duration.ofSeconds(5));
+	}
+
+	private BatchLoader<Integer, String> loader(int maxBatchSize, Function<Set<Integer>, Mono<Map<Integer, String>>> lookup) {
+		return new BatchLoader<>(keys -> {
+			batches.add(keys);
+			return lookup.apply(keys);
+		}, WINDOW, maxBatchSize, TIMEOUT, scheduler);
+	}
+
+	private static Map<Integer, String> names(Set<Integer> keys) {
+		return keys.stream().collect(Collectors.toMap(Function.identity(), key -> "car " + key));
+	}
+
+}
@@ -0,0 +1,70 @@
+package fr.leblanc.webflux.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import fr.leblanc.webflux.controller.dto.CarEventDto;
+import fr.leblanc.webflux.controller.dto.CarEventType;
+import reactor.test.StepVerifier;
+
+class CarChangeFeedTests {
+
+	@Test
+	void concurrentPublishersLoseNoEvent() throws InterruptedException {
+		int threads = 8;
+		int perThread = 2_000;
+		CarChangeFeed feed = new CarChangeFeed(16, threads * perThread);
+		List<CarEventDto> received = new CopyOnWriteArrayList<>();
+		feed.changes().subscribe(received::add);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		for (int t = 0; t < threads; t++) {
+			int first = t * perThread;
+			executor.execute(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				for (int id = first; id < first + perThread; id++) {
+					feed.publish(CarEventType.DELETED, id, null);
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		executor.awaitTermination(30, TimeUnit.SECONDS);
+
+		assertEquals(threads * perThread, received.size());
+		Set<Integer> ids = received.stream().map(CarEventDto::carId).collect(Collectors.toSet());
+		assertEquals(threads * perThread, ids.size());
+	}
+
+	@Test
+	void lateSubscriberGetsTheReplay() {
+		CarChangeFeed feed = new CarChangeFeed(2, 16);
+		feed.publish(CarEventType.DELETED, 1, null);
+		feed.publish(CarEventType.DELETED, 2, null);
+		feed.publish(CarEventType.DELETED, 3, null);
+		StepVerifier.create(feed.changes().map(CarEventDto::carId))
+				.expectNext(2, 3)
+				.then(() -> feed.publish(CarEventType.DELETED, 4, null))
+				.expectNext(4)
+				.thenCancel()
+				.verify(Duration.ofSeconds(5));
+	}
+
+}
@@ -0,0 +1,60 @@
+package fr.leblanc.webflux.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import fr.leblanc.webflux.controller.dto.BrandStatsDto;
+import fr.leblanc.webflux.controller.dto.CarDto;
+import fr.leblanc.webflux.controller.dto.CarStatsDto;
+import fr.leblanc.webflux.repository.CarQueryRepository;
+import fr.leblanc.webflux.repository.CarTotals;
+import reactor.core.publisher.Flux;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+class CarStatsSummaryTests {
+
+	private final CarQueryRepository repository = mock(CarQueryRepository.class);
+
+	@AfterEach
+	void resetScheduler() {
+		VirtualTimeScheduler.reset();
+	}
+
+	@Test
+	void writesUpdateTheLoadedTotals() {
+		when(repository.getTotalsByBrand()).thenReturn(Flux.just(new CarTotals("A", 2, 2, 300)));
+		CarStatsSummary summary = new CarStatsSummary(repository, true, Duration.ZERO);
+		summary.start();
+
+		summary.add(new CarDto(3, "B", 100));
+		summary.replace(new CarDto(1, "A", 100), new CarDto(1, "A", 400));
+
+		assertEquals(new CarStatsDto(3, 700 / 3.0), summary.getStats());
+		assertEquals(List.of(new BrandStatsDto("A", 2, 300.0), new BrandStatsDto("B", 1, 100.0)),
+				summary.getBrandStats());
+	}
+
+	@Test
+	void periodicReloadCorrectsDrift() {
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.getOrSet();
+		when(repository.getTotalsByBrand()).thenReturn(Flux.just(new CarTotals("A", 2, 2, 300)));
+		CarStatsSummary summary = new CarStatsSummary(repository, true, Duration.ofMinutes(1));
+		summary.start();
+		scheduler.advanceTime();
+		// a write whose previous row was read before a concurrent update leaves the totals off
+		summary.remove(new CarDto(1, "A", 999));
+		assertEquals(1, summary.getStats().count());
+
+		scheduler.advanceTimeBy(Duration.ofMinutes(1));
+		assertEquals(new CarStatsDto(2, 150.0), summary.getStats());
+		summary.stop();
+	}
+
+}